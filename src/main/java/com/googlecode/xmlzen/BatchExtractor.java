@@ -0,0 +1,45 @@
+/*
+ * Copyright 2009-2010 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.nio.file.Path;
+
+/**
+ * Extracts data from a single file of a batch, see 
+ * {@link XmlSlicer#cutAll(java.util.Collection, String, int, BatchExtractor)}.
+ *
+ * Implementations are called from many threads at once, so they should be 
+ * thread safe.
+ *
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ * @param <Type> Type of extracted data
+ */
+public interface BatchExtractor<Type> {
+
+    /**
+     * Extracts data from a sliced file. Any exception marks the file as 
+     * failed, other files of the batch are processed anyway.
+     *
+     * @param path Path of the file
+     * @param xml Sliced file contents
+     * @return Extracted data
+     * @throws Exception if extraction fails
+     */
+    public Type extract(Path path, XmlSlicer xml) throws Exception;
+
+}
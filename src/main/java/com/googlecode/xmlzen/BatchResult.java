@@ -0,0 +1,101 @@
+/*
+ * Copyright 2009-2010 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.nio.file.Path;
+
+/**
+ * Result of processing a single file of a batch: data that was extracted 
+ * from the file, or the reason why the file failed.
+ *
+ * @see XmlSlicer#cutAll(java.util.Collection, String, int, BatchExtractor)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ * @param <Type> Type of extracted data
+ */
+public class BatchResult<Type> {
+
+    /**
+     * Path of the file
+     */
+    private final Path path;
+
+    /**
+     * Extracted data
+     */
+    private final Type value;
+
+    /**
+     * Failure or null
+     */
+    private final Exception error;
+
+    /**
+     * Builds the result
+     *
+     * @param path Path of the file
+     * @param value Extracted data
+     * @param error Failure or null
+     */
+    BatchResult(final Path path, final Type value, final Exception error) {
+        this.path = path;
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Gets the path of the file
+     *
+     * @return Path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the data that was extracted from the file
+     *
+     * @return Extracted data or null if file failed
+     */
+    public Type getValue() {
+        return value;
+    }
+
+    /**
+     * Gets the reason why the file failed: a failure to read the file or 
+     * an exception thrown by {@link BatchExtractor}
+     *
+     * @return Failure or null if file succeeded
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * Checks if processing of the file failed
+     *
+     * @return true if there is an error
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return path + (error == null ? ": " + value : " failed: " + error);
+    }
+}
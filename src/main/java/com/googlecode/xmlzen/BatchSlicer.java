@@ -0,0 +1,196 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Reads and slices many files concurrently, with a fixed count of worker 
+ * threads that take the next file as soon as they are done with the 
+ * previous one.
+ * <p>
+ * Files are read into heap instead of mapping them, because mapping 
+ * costs more than reading for small files. For ASCII compatible 
+ * charsets file bytes are sliced without decoding them.</p>
+ *
+ * @see XmlSlicer#cutAll(Collection, String, int, BatchExtractor)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ * @param <Type> Type of extracted data
+ */
+final class BatchSlicer<Type> {
+
+    /**
+     * Files to process
+     */
+    private final Path[] paths;
+
+    /**
+     * Charset of the files, or null for detecting it
+     */
+    private final String charset;
+
+    /**
+     * Extracts data from each file
+     */
+    private final BatchExtractor<Type> extractor;
+
+    /**
+     * Receives the results, or null if results are collected
+     */
+    private final BatchListener<Type> listener;
+
+    /**
+     * Collected results in the order of paths, or null. Workers set 
+     * distinct elements, which are read after they are joined.
+     */
+    private final List<BatchResult<Type>> results;
+
+    /**
+     * Index of the next file to process
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * First exception thrown by the listener, or Error thrown by a worker
+     */
+    private final AtomicReference<Throwable> failure = 
+        new AtomicReference<Throwable>();
+
+    /**
+     * Builds the batch
+     *
+     * @param paths Files to process
+     * @param charset Charset of the files, or null for detecting it
+     * @param extractor Extracts data from each file
+     * @param listener Receives the results, or null for collecting them
+     */
+    BatchSlicer(final Collection<Path> paths, final String charset, 
+            final BatchExtractor<Type> extractor, 
+            final BatchListener<Type> listener) {
+        this.paths = paths.toArray(new Path[paths.size()]);
+        this.charset = charset;
+        this.extractor = extractor;
+        this.listener = listener;
+        this.results = listener == null ? new ArrayList<BatchResult<Type>>(
+                Collections.<BatchResult<Type>>nCopies(this.paths.length, null))
+                : null;
+    }
+
+    /**
+     * Processes all files and waits until they are done
+     *
+     * @param parallelism Maximum count of files processed at once
+     * @throws XmlZenException if the listener fails, a worker fails with 
+     *         an Error or waiting is interrupted
+     */
+    void run(final int parallelism) {
+        if (parallelism < 1) {
+            throw new XmlZenException("Parallelism must be positive: " 
+                    + parallelism);
+        }
+        final Thread[] workers = new Thread[Math.min(parallelism, 
+                Math.max(1, paths.length))];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "xmlzen-batch-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for (final Thread worker : workers) {
+                worker.join();
+            }
+        } catch (final InterruptedException e) {
+            //let the workers stop after their current file
+            next.set(paths.length);
+            Thread.currentThread().interrupt();
+            throw new XmlZenException("Interrupted while slicing files", e);
+        }
+        if (failure.get() != null) {
+            throw new XmlZenException("Failed slicing files", failure.get());
+        }
+    }
+
+    /**
+     * Gets the collected results
+     *
+     * @return Results in the order of paths
+     */
+    List<BatchResult<Type>> getResults() {
+        return results;
+    }
+
+    /**
+     * Processes files until there are none left. A failing listener or an
+     * Error (i.e. OutOfMemoryError) fails the whole batch, so results are 
+     * never left missing without a reason.
+     */
+    private void work() {
+        try {
+            int index;
+            while ((index = next.getAndIncrement()) < paths.length) {
+                final BatchResult<Type> result = process(paths[index]);
+                if (listener == null) {
+                    results.set(index, result);
+                } else {
+                    listener.onResult(result);
+                }
+            }
+        } catch (final Throwable e) {
+            failure.compareAndSet(null, e);
+            next.set(paths.length);
+        }
+    }
+
+    /**
+     * Reads, slices and extracts a single file
+     *
+     * @param path Path of the file
+     * @return Extracted data or failure
+     */
+    private BatchResult<Type> process(final Path path) {
+        try {
+            final XmlSlicer xml;
+            if (charset == null) {
+                final String contents = FileUtils.readXmlFile(path.toFile());
+                if (contents == null) {
+                    throw new XmlZenException("Not a file: " + path);
+                }
+                xml = XmlSlicer.cut(contents);
+            } else {
+                xml = XmlSlicer.cut(Files.readAllBytes(path), charset);
+            }
+            return new BatchResult<Type>(path, extractor.extract(path, xml), 
+                    null);
+        } catch (final Exception e) {
+            return new BatchResult<Type>(path, null, e);
+        }
+    }
+}
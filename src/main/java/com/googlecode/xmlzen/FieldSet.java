@@ -0,0 +1,192 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.Arrays;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * A compiled set of tag names that are extracted from XML together, in a
+ * single left to right scan.
+ * <p>
+ * Extracting a field set gives the same results as calling
+ * {@link XmlSlicer#get(String)} for every tag, but the record is scanned
+ * once instead of once per tag:</p>
+ * <pre>
+ * private static final FieldSet ITEM = XmlSlicer.fields("id", "sku",
+ *     "qty", "price");
+ * ...
+ * for (XmlSlicer item : XmlSlicer.cut(xml).iterateTags("item")) {
+ *     XmlSlicer[] fields = item.extract(ITEM);
+ *     //fields[0] is the value of "id", fields[3] - "price"
+ * }
+ * </pre>
+ * <p>
+ * FieldSet is immutable and can be shared between threads.</p>
+ *
+ * @see XmlSlicer#fields(String...)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class FieldSet {
+
+    /**
+     * Bucket for tag names that do not start with an ASCII char
+     */
+    private static final int OTHER = 128;
+
+    /**
+     * Tag names in the order they were given
+     */
+    private final String[] tags;
+
+    /**
+     * "&lt;tag" of each field
+     */
+    private final String[] tagStarts;
+
+    /**
+     * Indexes of tags grouped by the first char of tag name
+     */
+    private final int[][] byFirstChar = new int[OTHER + 1][];
+
+    /**
+     * Compiles the field set. Use {@link XmlSlicer#fields(String...)} for
+     * instantiating FieldSet.
+     *
+     * @param tags Tag names
+     */
+    FieldSet(final String... tags) {
+        this.tags = tags.clone();
+        this.tagStarts = new String[tags.length];
+        final int[] counts = new int[byFirstChar.length];
+        for (final String tag : this.tags) {
+            if (tag == null || tag.length() == 0) {
+                throw new XmlZenException("Empty tag name in field set: "
+                        + Arrays.toString(tags));
+            }
+            counts[bucket(tag.charAt(0))]++;
+        }
+        for (int i = 0; i < this.tags.length; i++) {
+            tagStarts[i] = "<".concat(this.tags[i]);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            byFirstChar[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < this.tags.length; i++) {
+            final int bucket = bucket(this.tags[i].charAt(0));
+            byFirstChar[bucket][counts[bucket]++] = i;
+        }
+    }
+
+    /**
+     * Gets the count of fields
+     *
+     * @return Count of tag names
+     */
+    public int size() {
+        return tags.length;
+    }
+
+    /**
+     * Gets the tag name of a field
+     *
+     * @param field Field index
+     * @return Tag name
+     */
+    public String getTag(final int field) {
+        return tags[field];
+    }
+
+    /**
+     * Finds the first tag of every field within a region of XML, in a
+     * single scan. Fills 4 offsets per field, just like
+     * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])} does,
+     * {@link XmlUtils#TAG_START} is -1 for fields that are not found.
+     *
+     * @param xml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param bounds Array of at least 4 * {@link #size()} elements
+     * @return Count of fields that were found
+     */
+    int extract(final CharSequence xml, final int from, final int to,
+            final int[] bounds) {
+        final String[] names = new String[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            names[i] = XmlUtils.encode(xml, tags[i]);
+            bounds[i * 4 + XmlUtils.TAG_START] = -1;
+        }
+        final int[] tag = new int[4];
+        int found = 0;
+        int left = tags.length;
+        int offset = from;
+        while (left > 0) {
+            final int markup = XmlUtils.indexOf(xml, '<', offset, to);
+            if (markup == -1 || markup + 1 >= to) {
+                break;
+            }
+            offset = markup + 1;
+            final int[] fields = byFirstChar[bucket(xml.charAt(offset))];
+            for (int j = 0; j < fields.length; j++) {
+                final int field = fields[j];
+                final int slot = field * 4;
+                //field is done if found, or if it's first tag is broken
+                if (bounds[slot + XmlUtils.TAG_START] == -1
+                        && names[field] != null
+                        && XmlUtils.isName(xml, offset, to, names[field])) {
+                    left--;
+                    if (XmlUtils.findTag(xml, tags[field], tagStarts[field],
+                            markup, to, tag)) {
+                        System.arraycopy(tag, 0, bounds, slot, 4);
+                        found++;
+                    } else {
+                        names[field] = null;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns tag names separated by ","
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < tags.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(tags[i]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Chooses the bucket for a tag name by it's first char
+     *
+     * @param c First char of tag name
+     * @return Bucket index
+     */
+    private static int bucket(final char c) {
+        return c < OTHER ? c : OTHER;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * A channel of gzip compressed XML that is inflated on a separate thread, 
+ * so inflating and slicing overlap.
+ * <p>
+ * The inflating thread fills a ring of reusable buffers: it takes an 
+ * empty buffer, fills it and passes it to the reader, which gives the 
+ * buffer back when it's read. The inflater waits when all buffers are 
+ * full, so memory use is bounded by the ring size.</p>
+ *
+ * @see XmlSlicer#streamGzip(InputStream, String, String)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+final class InflatingChannel implements ReadableByteChannel {
+
+    /**
+     * Default count of buffers in the ring
+     */
+    static final int BUFFERS = 4;
+
+    /**
+     * Default buffer size - 64 KB
+     */
+    static final int BUFFER = 65536;
+
+    /**
+     * Marks the end of inflated data
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * Count of inflating threads, for naming them
+     */
+    private static int threads;
+
+    /**
+     * Compressed source
+     */
+    private final InputStream compressed;
+
+    /**
+     * Buffers that can be filled
+     */
+    private final BlockingQueue<ByteBuffer> empty;
+
+    /**
+     * Filled buffers in the order they have to be read, followed by END
+     */
+    private final BlockingQueue<ByteBuffer> full;
+
+    /**
+     * Size of a single buffer
+     */
+    private final int bufferSize;
+
+    /**
+     * Failure of the inflating thread, reported after the data that was 
+     * inflated before it
+     */
+    private volatile IOException error;
+
+    /**
+     * Is the channel still open?
+     */
+    private volatile boolean open = true;
+
+    /**
+     * Inflating thread, started by the first read
+     */
+    private Thread inflater;
+
+    /**
+     * Buffer that is being read, null if the next one has to be taken
+     */
+    private ByteBuffer current;
+
+    /**
+     * Has END been taken?
+     */
+    private boolean eof;
+
+    /**
+     * Builds the channel
+     *
+     * @param compressed Gzip compressed source
+     * @param buffers Count of buffers in the ring
+     * @param bufferSize Size of a single buffer
+     */
+    InflatingChannel(final InputStream compressed, final int buffers, 
+            final int bufferSize) {
+        this.compressed = compressed;
+        this.bufferSize = bufferSize;
+        this.empty = new ArrayBlockingQueue<ByteBuffer>(buffers);
+        //room for every buffer and the END
+        this.full = new ArrayBlockingQueue<ByteBuffer>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            empty.add(ByteBuffer.allocate(bufferSize));
+        }
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (inflater == null) {
+            start();
+        }
+        if (eof) {
+            if (error != null) {
+                throw new IOException("Failed inflating XML", error);
+            }
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining()) {
+            if (current == null) {
+                //wait only if nothing was read yet
+                current = total == 0 ? take() : full.poll();
+                if (current == null) {
+                    break;
+                }
+                if (current == END) {
+                    current = null;
+                    eof = true;
+                    return total == 0 ? read(dst) : total;
+                }
+            }
+            final int count = Math.min(current.remaining(), dst.remaining());
+            final ByteBuffer part = current.duplicate();
+            part.limit(part.position() + count);
+            dst.put(part);
+            current.position(part.position());
+            total += count;
+            if (!current.hasRemaining()) {
+                empty.add(current);
+                current = null;
+            }
+        }
+        return total;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Stops inflating and closes the compressed source
+     */
+    public void close() {
+        open = false;
+        if (inflater != null) {
+            inflater.interrupt();
+        }
+        FileUtils.close(compressed);
+    }
+
+    /**
+     * Starts the inflating thread
+     */
+    private void start() {
+        final int number;
+        synchronized (InflatingChannel.class) {
+            number = threads++;
+        }
+        inflater = new Thread(new Runnable() {
+            public void run() {
+                inflate();
+            }
+        }, "xmlzen-inflate-" + number);
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    /**
+     * Takes the next filled buffer, waiting for it if needed
+     *
+     * @return Filled buffer or END
+     * @throws InterruptedIOException if waiting is interrupted
+     */
+    private ByteBuffer take() throws InterruptedIOException {
+        try {
+            return full.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for"
+                    + " inflated XML");
+        }
+    }
+
+    /**
+     * Inflates the source into empty buffers until it ends, fails or the 
+     * channel is closed. END is queued in any case, so the reader never 
+     * waits for a thread that is gone, and the gzip stream is closed, so 
+     * it's native inflater is released without waiting for the reader.
+     */
+    private void inflate() {
+        ByteBuffer buffer = null;
+        InputStream in = null;
+        try {
+            in = new GZIPInputStream(compressed, bufferSize);
+            while (open) {
+                buffer = empty.take();
+                buffer.clear();
+                //fill the whole buffer, so buffers are passed rarely
+                int read = 0;
+                while (read != -1 && buffer.hasRemaining()) {
+                    read = in.read(buffer.array(), buffer.position(), 
+                            buffer.remaining());
+                    if (read > 0) {
+                        buffer.position(buffer.position() + read);
+                    }
+                }
+                queue(buffer);
+                buffer = null;
+                if (read == -1) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            //channel was closed
+        } catch (final IOException e) {
+            queue(buffer);
+            error = e;
+        } catch (final RuntimeException e) {
+            queue(buffer);
+            error = new IOException(e);
+        } catch (final Error e) {
+            error = new IOException(e);
+            throw e;
+        } finally {
+            FileUtils.close(in);
+            full.add(END);
+        }
+    }
+
+    /**
+     * Passes a buffer with inflated data to the reader
+     *
+     * @param buffer Buffer that is being filled or null
+     */
+    private void queue(final ByteBuffer buffer) {
+        if (buffer != null) {
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                //never blocks: there is room for every buffer
+                full.add(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlBytes;
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * XML file of any size, mapped into memory one segment at a time.
+ * <p>
+ * A single mapping (and everything sliced with <code>int</code> offsets) 
+ * is limited to 2 GB, so large files are looked through a window: a 
+ * segment of the file is mapped and searched, then the next segment is 
+ * mapped starting at the last incomplete tag, so tags that cross a segment
+ * boundary are found whole in the next segment. Offsets in the file are 
+ * <code>long</code>, see {@link XmlCursor}.</p>
+ * <p>
+ * Tags are matched just like {@link XmlSlicer#getTags(String)} does, and 
+ * every found tag is a regular {@link XmlSlicer}, so 
+ * {@link XmlSlicer#get(String)}, {@link XmlSlicer#attribute(String)} and 
+ * the rest work on it as usual. A single tag must fit into a segment 
+ * (1 GB by default).</p>
+ * <pre>
+ * MappedXml export = XmlSlicer.map(path, "UTF-8");
+ * try {
+ *     for (XmlSlicer record : export.iterateTags("record")) {
+ *         System.out.println(record.get("id"));
+ *     }
+ * } finally {
+ *     export.close();
+ * }
+ * </pre>
+ * <p>
+ * MappedXml is not thread safe, it reuses the current segment.</p>
+ *
+ * @see XmlSlicer#map(Path, String)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class MappedXml implements Closeable {
+
+    /**
+     * Default segment size - 1 GB
+     */
+    static final int SEGMENT = 1 << 30;
+
+    /**
+     * Path of the mapped file
+     */
+    private final Path path;
+
+    /**
+     * Channel that segments are mapped from
+     */
+    private final FileChannel channel;
+
+    /**
+     * Charset of the file
+     */
+    private final Charset charset;
+
+    /**
+     * Size of the file in bytes
+     */
+    private final long length;
+
+    /**
+     * Maximum size of a segment
+     */
+    private final int segmentSize;
+
+    /**
+     * Tag bounds filled by XmlUtils
+     */
+    private final int[] bounds = new int[4];
+
+    /**
+     * Offset of the current segment in the file
+     */
+    private long segmentStart;
+
+    /**
+     * Current segment, null until the first one is mapped
+     */
+    private XmlBytes segment;
+
+    /**
+     * Opens the file. Use {@link XmlSlicer#map(Path, String)} for 
+     * instantiating MappedXml.
+     *
+     * @param path Path of the file
+     * @param charset Charset of the file, must be ASCII compatible
+     * @param segmentSize Maximum size of a segment
+     */
+    MappedXml(final Path path, final Charset charset, 
+            final int segmentSize) {
+        if (!XmlBytes.isSupported(charset)) {
+            throw new XmlZenException("Charset is not ASCII compatible: "
+                    + charset);
+        }
+        this.path = path;
+        this.charset = charset;
+        this.segmentSize = segmentSize;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.length = channel.size();
+        } catch (final IOException e) {
+            throw new XmlZenException("Failed opening file: " + path, e);
+        }
+    }
+
+    /**
+     * Gets the size of the file
+     *
+     * @return Size in bytes
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets the next tag after cursor position and moves the cursor right 
+     * after that tag.
+     *
+     * @see XmlCursor#next(MappedXml)
+     * @param cursor Cursor with target tag and position in the file
+     * @return Next tag or null if there are no more tags
+     * @throws XmlZenException if a tag does not fit into a segment, or is 
+     *         not closed within one
+     */
+    public XmlSlicer next(final XmlCursor cursor) {
+        final String tag = cursor.getTag();
+        long from = cursor.getPosition();
+        boolean remap = false;
+        while (from < length) {
+            map(from, remap);
+            final int offset = (int) (from - segmentStart);
+            if (XmlUtils.findTag(segment, tag, offset, segment.length(), 
+                    bounds)) {
+                cursor.moveTo(segmentStart + bounds[XmlUtils.TAG_END]);
+                return XmlSlicer.cut(segment.subSequence(
+                        bounds[XmlUtils.TAG_START], 
+                        bounds[XmlUtils.TAG_END]));
+            }
+            final long segmentEnd = segmentStart + segment.length();
+            if (segmentEnd == length) {
+                break;
+            }
+            //next segment starts with the incomplete tag, or with the tail 
+            //that can turn into a beginning of the tag
+            final int start = XmlUtils.findTagStart(segment, tag, offset, 
+                    segment.length());
+            final long next = start == -1 
+                    ? Math.max(from, segmentEnd - segment.encode(tag).length())
+                    : segmentStart + start;
+            if (next == segmentStart) {
+                throw new XmlZenException("Tag " + tag + " at " + next 
+                        + " does not fit into a segment of " + segmentSize 
+                        + " bytes in " + path);
+            }
+            from = next;
+            remap = true;
+        }
+        cursor.moveTo(Math.max(from, length));
+        return null;
+    }
+
+    /**
+     * Iterates over all tags with the given name, from the start of the 
+     * file.
+     *
+     * @see XmlSlicer#iterateTags(String)
+     * @param tag Target xml tag name
+     * @return Iterable of tags, can be iterated many times
+     */
+    public Iterable<XmlSlicer> iterateTags(final String tag) {
+        return new Iterable<XmlSlicer>() {
+            public Iterator<XmlSlicer> iterator() {
+                return new CursorIterator(new XmlCursor(tag));
+            }
+        };
+    }
+
+    /**
+     * Gets all tags with the given name. Tags are views of mapped segments,
+     * so collecting them does not copy the file into heap.
+     *
+     * @see XmlSlicer#getTags(String)
+     * @param tag Target xml tag name
+     * @return XmlSlicerList - a List of XmlSlicer objects
+     */
+    public XmlSlicerList getTags(final String tag) {
+        final XmlSlicerList results = new XmlSlicerList();
+        for (final XmlSlicer found : iterateTags(tag)) {
+            results.add(found);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the first tag with the given name
+     *
+     * @see XmlSlicer#getTag(String)
+     * @param tag Target xml tag name
+     * @return Tag or null slicer if it is not found
+     */
+    public XmlSlicer getTag(final String tag) {
+        final XmlSlicer found = next(new XmlCursor(tag));
+        return found == null ? XmlSlicer.cut((String) null) : found;
+    }
+
+    /**
+     * Gets the contents of the first tag with the given name
+     *
+     * @see XmlSlicer#get(String)
+     * @param tag Target xml tag name
+     * @return Contents of the tag
+     */
+    public XmlSlicer get(final String tag) {
+        final XmlSlicer found = next(new XmlCursor(tag));
+        return found == null ? XmlSlicer.cut((String) null) : found.get(tag);
+    }
+
+    /**
+     * Gets an attribute of the first tag with the given name that has any
+     * attributes, just like {@link XmlSlicer#getTagAttribute(String, String)}
+     *
+     * @param tag Target xml tag name
+     * @param attribute Attribute name
+     * @return Attribute value or null
+     */
+    public String getTagAttribute(final String tag, final String attribute) {
+        final XmlCursor cursor = new XmlCursor(tag);
+        XmlSlicer found;
+        while ((found = next(cursor)) != null) {
+            if (found.isTagWithAttributes(tag)) {
+                return found.attribute(attribute);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the file. Tags that were already found stay readable.
+     */
+    public void close() {
+        FileUtils.close(channel);
+    }
+
+    /**
+     * Maps the segment that starts at the given offset, unless the current
+     * segment has it in the first half or reaches the end of the file
+     *
+     * @param from Offset in the file
+     * @param force Map even if the current segment has the offset
+     */
+    private void map(final long from, final boolean force) {
+        if (!force && segment != null && from >= segmentStart 
+                && (from - segmentStart <= segment.length() / 2 
+                || segmentStart + segment.length() == length)) {
+            return;
+        }
+        final long size = Math.min(segmentSize, length - from);
+        try {
+            final MappedByteBuffer bytes = channel.map(
+                    FileChannel.MapMode.READ_ONLY, from, size);
+            segment = new XmlBytes(bytes, charset);
+            segmentStart = from;
+        } catch (final IOException e) {
+            throw new XmlZenException("Failed mapping " + size 
+                    + " bytes at " + from + " of file: " + path, e);
+        }
+    }
+
+    /**
+     * Moves the cursor from tag to tag
+     */
+    private class CursorIterator implements Iterator<XmlSlicer> {
+
+        /**
+         * Position of the iteration
+         */
+        private final XmlCursor cursor;
+
+        /**
+         * Tag that will be returned by {@link #next()}
+         */
+        private XmlSlicer next;
+
+        CursorIterator(final XmlCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        public boolean hasNext() {
+            if (next == null) {
+                next = MappedXml.this.next(cursor);
+            }
+            return next != null;
+        }
+
+        public XmlSlicer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final XmlSlicer result = next;
+            next = null;
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
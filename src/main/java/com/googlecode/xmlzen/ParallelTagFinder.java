@@ -0,0 +1,209 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Finds all tags with the same name in a {@link ForkJoinPool}.
+ * <p>
+ * XML is split into chunks that are scanned concurrently. A chunk starts at
+ * an arbitrary offset, so it resynchronizes by starting from the first
+ * "&lt;tag" in it and collects every tag that starts inside the chunk. The
+ * chunk results are then joined in document order: a chunk result is
+ * trusted from the first tag that a sequential scan would also find, which
+ * is checked with a single
+ * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])} call. This
+ * way the result is always the same as the sequential one.</p>
+ *
+ * @see XmlSlicer#getTagsParallel(String, ForkJoinPool)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+final class ParallelTagFinder extends RecursiveTask<List<int[]>> {
+
+    private static final long serialVersionUID = -3817291651296316164L;
+
+    /**
+     * Source XML
+     */
+    private final CharSequence xml;
+
+    /**
+     * Target tag name
+     */
+    private final String tag;
+
+    /**
+     * "&lt;" followed by target tag name
+     */
+    private final String tagStart;
+
+    /**
+     * Start of the chunks of this task
+     */
+    private final int from;
+
+    /**
+     * End of the chunks of this task
+     */
+    private final int to;
+
+    /**
+     * End of the whole region, tags can end after the chunk
+     */
+    private final int end;
+
+    /**
+     * Maximum chunk size
+     */
+    private final int chunk;
+
+    /**
+     * Builds a task that scans a part of XML
+     */
+    private ParallelTagFinder(final CharSequence xml, final String tag,
+            final int from, final int to, final int end, final int chunk) {
+        this.xml = xml;
+        this.tag = tag;
+        this.tagStart = "<".concat(tag);
+        this.from = from;
+        this.to = to;
+        this.end = end;
+        this.chunk = chunk;
+    }
+
+    /**
+     * Finds all tags in the region, just like a sequential loop over
+     * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])} does.
+     *
+     * @param xml Source XML, must be safe for reading from many threads
+     * @param tag Target tag name
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param pool Pool that scans the chunks
+     * @param chunk Maximum chunk size
+     * @return Bounds of all found tags, 4 ints per tag
+     */
+    static int[] findAll(final CharSequence xml, final String tag,
+            final int from, final int to, final ForkJoinPool pool,
+            final int chunk) {
+        final List<int[]> chunks = pool.invoke(
+                new ParallelTagFinder(xml, tag, from, to, to, chunk));
+        final String tagStart = "<".concat(tag);
+        final int[] bounds = new int[4];
+        int[] result = new int[64];
+        int size = 0;
+        int lastEnd = from;
+        for (final int[] found : chunks) {
+            for (int i = 0; i < found.length; i += 4) {
+                if (found[i + XmlUtils.TAG_START] < lastEnd) {
+                    continue;
+                }
+                if (!XmlUtils.findTag(xml, tag, tagStart, lastEnd, to,
+                        bounds)) {
+                    return Arrays.copyOf(result, size);
+                }
+                if (bounds[XmlUtils.TAG_START] == found[i]) {
+                    //in sync with sequential scan, the rest is the same
+                    final int count = found.length - i;
+                    if (size + count > result.length) {
+                        result = Arrays.copyOf(result,
+                                Math.max(result.length * 2, size + count));
+                    }
+                    System.arraycopy(found, i, result, size, count);
+                    size += count;
+                    lastEnd = found[found.length - 4 + XmlUtils.TAG_END];
+                    break;
+                }
+                //chunk missed this tag, take it and check the same tag of
+                //the chunk again
+                if (size + 4 > result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                System.arraycopy(bounds, 0, result, size, 4);
+                size += 4;
+                lastEnd = bounds[XmlUtils.TAG_END];
+                i -= 4;
+            }
+        }
+        while (XmlUtils.findTag(xml, tag, tagStart, lastEnd, to, bounds)) {
+            if (size + 4 > result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            System.arraycopy(bounds, 0, result, size, 4);
+            size += 4;
+            lastEnd = bounds[XmlUtils.TAG_END];
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Splits the task in halves until chunks are small enough
+     *
+     * @return Tags found in every chunk, in document order
+     */
+    @Override
+    protected List<int[]> compute() {
+        if (to - from > chunk) {
+            final int middle = from + (to - from) / 2;
+            final ParallelTagFinder right = new ParallelTagFinder(xml, tag,
+                    middle, to, end, chunk);
+            right.fork();
+            final List<int[]> result = new ParallelTagFinder(xml, tag, from,
+                    middle, end, chunk).compute();
+            result.addAll(right.join());
+            return result;
+        }
+        final List<int[]> result = new ArrayList<int[]>();
+        result.add(scan());
+        return result;
+    }
+
+    /**
+     * Scans a single chunk
+     *
+     * @return Bounds of tags that start in this chunk, 4 ints per tag
+     */
+    private int[] scan() {
+        final int[] bounds = new int[4];
+        int[] found = new int[64];
+        int size = 0;
+        int offset = from;
+        while (true) {
+            //do not look for the tag end if tag does not start in this chunk
+            final int start = XmlUtils.findTagStart(xml, tag, offset, to);
+            if (start == -1
+                    || !XmlUtils.findTag(xml, tag, tagStart, start, end, bounds)
+                    || bounds[XmlUtils.TAG_START] >= to) {
+                return Arrays.copyOf(found, size);
+            }
+            if (size == found.length) {
+                found = Arrays.copyOf(found, size * 2);
+            }
+            System.arraycopy(bounds, 0, found, size, 4);
+            size += 4;
+            offset = bounds[XmlUtils.TAG_END];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+/**
+ * Receives events of {@link XmlSlicer#scan(ScanHandler)}: every tag, 
+ * attribute and text in document order. Events carry offsets into source
+ * XML instead of Strings, so nothing is copied unless the handler asks 
+ * for it, i.e. with 
+ * {@link com.googlecode.xmlzen.utils.XmlUtils#substring(CharSequence, int, 
+ * int)}.
+ * <p>
+ * All methods do nothing by default, override the ones you need:</p>
+ * <pre>
+ * final int[] count = new int[1];
+ * XmlSlicer.cut(xml).scan(new ScanHandler() {
+ *     public void startTag(CharSequence xml, int start, int end, int depth) {
+ *         count[0]++;
+ *     }
+ * });
+ * </pre>
+ * <p>
+ * Depth is the count of open tags around the event, so the root tag and 
+ * it's closing tag have depth 0, while text and tags right inside it have 
+ * depth 1.</p>
+ *
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public abstract class ScanHandler {
+
+    /**
+     * Called for every opening tag, including self-closed ones
+     *
+     * @param xml Source XML
+     * @param start Tag name start
+     * @param end Tag name end (exclusive)
+     * @param depth Count of open tags around this one
+     */
+    public void startTag(final CharSequence xml, final int start, 
+            final int end, final int depth) {
+        //nothing to do
+    }
+
+    /**
+     * Called for every attribute, after {@link #startTag} of it's tag
+     *
+     * @param xml Source XML
+     * @param nameStart Attribute name start
+     * @param nameEnd Attribute name end (exclusive)
+     * @param valueStart Attribute value start, after the quote
+     * @param valueEnd Attribute value end (exclusive), at the closing quote
+     * @param depth Depth of the tag
+     */
+    public void attribute(final CharSequence xml, final int nameStart, 
+            final int nameEnd, final int valueStart, final int valueEnd, 
+            final int depth) {
+        //nothing to do
+    }
+
+    /**
+     * Called for text between tags, including whitespace, comments and 
+     * other markup that is not a tag
+     *
+     * @param xml Source XML
+     * @param start Text start
+     * @param end Text end (exclusive)
+     * @param depth Count of open tags around the text
+     */
+    public void text(final CharSequence xml, final int start, 
+            final int end, final int depth) {
+        //nothing to do
+    }
+
+    /**
+     * Called for every closing tag. Tags that are never closed, i.e. 
+     * &lt;br&gt; in HTML, are closed when a tag around them is closed, 
+     * then start and end point to the name in the opening tag. Self-closed 
+     * tags are closed right after they are opened.
+     *
+     * @param xml Source XML
+     * @param start Tag name start
+     * @param end Tag name end (exclusive)
+     * @param depth Depth of the matching opening tag
+     */
+    public void endTag(final CharSequence xml, final int start, 
+            final int end, final int depth) {
+        //nothing to do
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+/**
+ * A compiled path of tag names, i.e. "orders/order/line".
+ * <p>
+ * Slicing with a path is the same as chaining {@link XmlSlicer#get(String)}
+ * calls for all tags but the last one, and then applying the requested
+ * method to the last tag:</p>
+ * <pre>
+ * private static final SlicePath LINES = XmlSlicer.compile("orders/order/line");
+ * ...
+ * //same as XmlSlicer.cut(xml).get("orders").get("order").getTags("line")
+ * XmlSlicerList lines = XmlSlicer.cut(xml).getTags(LINES);
+ * </pre>
+ * <p>
+ * Everything that does not depend on the XML is prepared once, so slicing
+ * with a path builds no Strings and no intermediate XmlSlicer objects.
+ * SlicePath is immutable and can be shared between threads.</p>
+ *
+ * @see XmlSlicer#compile(String)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class SlicePath {
+
+    /**
+     * Path as it was given
+     */
+    private final String path;
+
+    /**
+     * Tag names of each step
+     */
+    private final String[] tags;
+
+    /**
+     * "&lt;tag" of each step
+     */
+    private final String[] tagStarts;
+
+    /**
+     * Compiles the path. Use {@link XmlSlicer#compile(String)} for
+     * instantiating SlicePath.
+     *
+     * @param path Tag names separated by "/"
+     */
+    SlicePath(final String path) {
+        final String[] steps = path.split("/", -1);
+        int from = 0;
+        int to = steps.length;
+        //leading and trailing slashes are allowed
+        if (to > 1 && steps[0].length() == 0) {
+            from++;
+        }
+        if (to > from + 1 && steps[to - 1].length() == 0) {
+            to--;
+        }
+        this.path = path;
+        this.tags = new String[to - from];
+        this.tagStarts = new String[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            final String tag = steps[from + i].trim();
+            if (tag.length() == 0) {
+                throw new XmlZenException("Empty tag name in path: " + path);
+            }
+            tags[i] = tag;
+            tagStarts[i] = "<".concat(tag);
+        }
+    }
+
+    /**
+     * Gets the count of steps
+     *
+     * @return Count of tag names in path
+     */
+    int size() {
+        return tags.length;
+    }
+
+    /**
+     * Gets the tag name of a step
+     *
+     * @param step Step index
+     * @return Tag name
+     */
+    String getTag(final int step) {
+        return tags[step];
+    }
+
+    /**
+     * Gets the "&lt;tag" of a step
+     *
+     * @param step Step index
+     * @return "&lt;" followed by tag name
+     */
+    String getTagStart(final int step) {
+        return tagStarts[step];
+    }
+
+    /**
+     * Returns the path as it was given
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Many compiled paths that are evaluated together, in a single pass over
+ * the XML.
+ * <p>
+ * All paths are merged into a tree of steps, so paths that share a prefix
+ * share the work. XML is scanned once, left to right, while tracking which
+ * steps are currently open; every tag is looked up by name once, no matter
+ * how many paths there are. The result for each path is the same as
+ * {@link XmlSlicer#get(SlicePath)} gives for well formed XML:</p>
+ * <pre>
+ * private static final SlicePathSet ROUTES = XmlSlicer.compileAll(
+ *     "message/header/type", "message/body/order/id", "message/body/refund");
+ * ...
+ * XmlSlicer[] values = XmlSlicer.cut(message).get(ROUTES);
+ * if (values[2].toString() != null) {
+ *     //it's a refund
+ * }
+ * </pre>
+ * <p>
+ * SlicePathSet is immutable and can be shared between threads.</p>
+ *
+ * @see XmlSlicer#compileAll(String...)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class SlicePathSet {
+
+    /**
+     * Step is waiting for it's tag
+     */
+    private static final byte WAITING = 0;
+
+    /**
+     * Tag of the step is open
+     */
+    private static final byte OPEN = 1;
+
+    /**
+     * Tag of the step is closed and it's bounds are known
+     */
+    private static final byte DONE = 2;
+
+    /**
+     * Step can not be found anymore
+     */
+    private static final byte FAILED = 3;
+
+    /**
+     * Paths as they were given
+     */
+    private final SlicePath[] paths;
+
+    /**
+     * Distinct tag names of all steps
+     */
+    private final SymbolTable symbols;
+
+    /**
+     * Tag name symbol of each step
+     */
+    private final int[] stepSymbols;
+
+    /**
+     * Parent step of each step, -1 for the first steps of paths
+     */
+    private final int[] stepParents;
+
+    /**
+     * Child steps of each step
+     */
+    private final int[][] stepChildren;
+
+    /**
+     * Steps of each tag name symbol
+     */
+    private final int[][] stepsBySymbol;
+
+    /**
+     * Last step of each path
+     */
+    private final int[] pathSteps;
+
+    /**
+     * Compiles the paths. Use {@link XmlSlicer#compileAll(String...)} for
+     * instantiating SlicePathSet.
+     *
+     * @param paths Paths of tag names separated by "/"
+     */
+    SlicePathSet(final String... paths) {
+        this.paths = new SlicePath[paths.length];
+        final List<String> names = new ArrayList<String>();
+        final List<int[]> steps = new ArrayList<int[]>();
+        this.pathSteps = new int[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            this.paths[i] = new SlicePath(paths[i]);
+            int parent = -1;
+            for (int j = 0; j < this.paths[i].size(); j++) {
+                final String tag = this.paths[i].getTag(j);
+                int symbol = names.indexOf(tag);
+                if (symbol == -1) {
+                    symbol = names.size();
+                    names.add(tag);
+                }
+                parent = step(steps, symbol, parent);
+            }
+            pathSteps[i] = parent;
+        }
+        this.symbols = new SymbolTable(names.toArray(
+                new String[names.size()]));
+        this.stepSymbols = new int[steps.size()];
+        this.stepParents = new int[steps.size()];
+        final int[] childCounts = new int[steps.size()];
+        final int[] symbolCounts = new int[names.size()];
+        for (int i = 0; i < stepSymbols.length; i++) {
+            stepSymbols[i] = steps.get(i)[0];
+            stepParents[i] = steps.get(i)[1];
+            symbolCounts[stepSymbols[i]]++;
+            if (stepParents[i] != -1) {
+                childCounts[stepParents[i]]++;
+            }
+        }
+        this.stepChildren = new int[steps.size()][];
+        for (int i = 0; i < stepChildren.length; i++) {
+            stepChildren[i] = new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        this.stepsBySymbol = new int[names.size()][];
+        for (int i = 0; i < stepsBySymbol.length; i++) {
+            stepsBySymbol[i] = new int[symbolCounts[i]];
+            symbolCounts[i] = 0;
+        }
+        for (int i = 0; i < stepSymbols.length; i++) {
+            stepsBySymbol[stepSymbols[i]][symbolCounts[stepSymbols[i]]++] = i;
+            if (stepParents[i] != -1) {
+                stepChildren[stepParents[i]][childCounts[stepParents[i]]++] =
+                    i;
+            }
+        }
+    }
+
+    /**
+     * Finds or adds a step to the tree of steps
+     *
+     * @param steps Steps as {symbol, parent} pairs
+     * @param symbol Tag name symbol
+     * @param parent Parent step
+     * @return Index of the step
+     */
+    private static int step(final List<int[]> steps, final int symbol,
+            final int parent) {
+        for (int i = 0; i < steps.size(); i++) {
+            if (steps.get(i)[0] == symbol && steps.get(i)[1] == parent) {
+                return i;
+            }
+        }
+        steps.add(new int[] {symbol, parent});
+        return steps.size() - 1;
+    }
+
+    /**
+     * Gets the count of paths
+     *
+     * @return Count of paths
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * Gets one of the paths
+     *
+     * @param path Path index
+     * @return Compiled path
+     */
+    public SlicePath getPath(final int path) {
+        return paths[path];
+    }
+
+    /**
+     * Finds the last tag of every path within a region of XML, in a single
+     * scan. Fills 4 offsets per path, just like
+     * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])} does,
+     * {@link XmlUtils#TAG_START} is -1 for paths that are not found.
+     *
+     * @param xml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param bounds Array of at least 4 * {@link #size()} elements
+     * @return Count of paths that were found
+     */
+    int find(final CharSequence xml, final int from, final int to,
+            final int[] bounds) {
+        final SymbolTable names = symbols.encode(xml);
+        final int steps = stepSymbols.length;
+        final byte[] states = new byte[steps];
+        final int[] stepBounds = new int[steps * 4];
+        //steps that were opened by the same tag are chained
+        final int[] sameTag = new int[steps];
+        //open tags: name offset, name end and the first step opened by it
+        int[] stack = new int[48];
+        int depth = 0;
+        int pending = steps;
+        int offset = from;
+        while (pending > 0) {
+            final int markup = XmlUtils.indexOf(xml, '<', offset, to);
+            if (markup == -1 || markup + 1 >= to) {
+                break;
+            }
+            offset = markup + 1;
+            final boolean closing = xml.charAt(offset) == '/';
+            final int nameStart = closing ? offset + 1 : offset;
+            final int nameEnd = XmlUtils.findNameEnd(xml, nameStart, to);
+            if (nameEnd == nameStart || xml.charAt(nameStart) == '!'
+                    || xml.charAt(nameStart) == '?') {
+                continue;
+            }
+            final int markupEnd = XmlUtils.indexOf(xml, '>', nameEnd, to);
+            if (markupEnd == -1) {
+                break;
+            }
+            if (closing) {
+                //find the matching open tag, tags left open above it were
+                //never closed
+                int open = depth - 3;
+                while (open >= 0 && !XmlUtils.regionEquals(xml, stack[open],
+                        stack[open + 1], nameStart, nameEnd)) {
+                    open -= 3;
+                }
+                if (open < 0) {
+                    continue;
+                }
+                for (int i = depth - 3; i > open; i -= 3) {
+                    pending -= close(stack[i + 2], states, sameTag, -1,
+                            stepBounds, xml, 0, 0);
+                }
+                pending -= close(stack[open + 2], states, sameTag, DONE,
+                        stepBounds, xml, markup, markupEnd + 1);
+                depth = open;
+                continue;
+            }
+            final boolean empty = xml.charAt(markupEnd - 1) == '/';
+            final int symbol = names.lookup(xml, nameStart, nameEnd);
+            int first = -1;
+            if (symbol != -1) {
+                final int[] candidates = stepsBySymbol[symbol];
+                for (int i = 0; i < candidates.length; i++) {
+                    final int step = candidates[i];
+                    final int parent = stepParents[step];
+                    if (states[step] == WAITING
+                            && (parent == -1 || states[parent] == OPEN)) {
+                        sameTag[step] = first;
+                        first = step;
+                    }
+                }
+            }
+            //steps are opened after matching, so a child step can not match
+            //the tag of it's parent
+            for (int step = first; step != -1; step = sameTag[step]) {
+                stepBounds[step * 4 + XmlUtils.TAG_START] = markup;
+                stepBounds[step * 4 + XmlUtils.VALUE_START] = markupEnd + 1;
+                states[step] = OPEN;
+            }
+            if (empty) {
+                pending -= close(first, states, sameTag, DONE, stepBounds,
+                        xml, -1, markupEnd + 1);
+            } else {
+                if (depth + 3 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[depth++] = nameStart;
+                stack[depth++] = nameEnd;
+                stack[depth++] = first;
+            }
+        }
+        int found = 0;
+        for (int i = 0; i < pathSteps.length; i++) {
+            final int step = pathSteps[i];
+            if (isDone(step, states)) {
+                System.arraycopy(stepBounds, step * 4, bounds, i * 4, 4);
+                found++;
+            } else {
+                bounds[i * 4 + XmlUtils.TAG_START] = -1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks if a step and all steps above it were closed properly
+     *
+     * @param step Step to check
+     * @param states Step states
+     * @return true if step is found
+     */
+    private boolean isDone(final int step, final byte[] states) {
+        for (int i = step; i != -1; i = stepParents[i]) {
+            if (states[i] != DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the steps that were opened by the same tag. Steps that wait
+     * inside them can not be found anymore.
+     *
+     * @param first First step opened by the tag, or -1
+     * @param states Step states
+     * @param sameTag Chains of steps opened by the same tag
+     * @param state {@link #DONE} if the tag was closed properly
+     * @param stepBounds Bounds of steps
+     * @param xml Source XML
+     * @param markup Offset of "&lt;/tag", or -1 if tag has no value
+     * @param tagEnd Offset right after the tag
+     * @return Count of steps that were closed or failed
+     */
+    private int close(final int first, final byte[] states,
+            final int[] sameTag, final int state, final int[] stepBounds,
+            final CharSequence xml, final int markup, final int tagEnd) {
+        int count = 0;
+        for (int step = first; step != -1; step = sameTag[step]) {
+            final int slot = step * 4;
+            if (state == DONE && markup == -1) {
+                stepBounds[slot + XmlUtils.VALUE_START] = -1;
+                stepBounds[slot + XmlUtils.VALUE_END] = -1;
+            } else if (state == DONE) {
+                final int valueStart = stepBounds[slot + XmlUtils.VALUE_START];
+                stepBounds[slot + XmlUtils.VALUE_START] =
+                    XmlUtils.trimStart(xml, valueStart, markup);
+                stepBounds[slot + XmlUtils.VALUE_END] =
+                    XmlUtils.trimEnd(xml, valueStart, markup);
+            }
+            stepBounds[slot + XmlUtils.TAG_END] = tagEnd;
+            states[step] = state == DONE ? DONE : FAILED;
+            count += 1 + fail(step, states);
+        }
+        return count;
+    }
+
+    /**
+     * Fails all waiting steps below the given one
+     *
+     * @param step Step that was closed
+     * @param states Step states
+     * @return Count of failed steps
+     */
+    private int fail(final int step, final byte[] states) {
+        int count = 0;
+        for (final int child : stepChildren[step]) {
+            if (states[child] == WAITING) {
+                states[child] = FAILED;
+                count += 1 + fail(child, states);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns all paths separated by ","
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < paths.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(paths[i]);
+        }
+        return result.toString();
+    }
+}
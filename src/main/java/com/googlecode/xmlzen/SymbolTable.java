@@ -0,0 +1,196 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.Arrays;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Open addressing hash table of tag names that can be looked up by a
+ * region of XML, without making a String. Every name gets an id - the
+ * order in which it was added.
+ * <p>
+ * Names are kept in the same form as source chars, so names for
+ * {@link com.googlecode.xmlzen.utils.XmlBytes} are encoded bytes (see
+ * {@link #encode(CharSequence)}). A table is not thread safe while names
+ * are added, but can be shared for lookups afterwards.</p>
+ *
+ * @see XmlIndex
+ * @see SlicePathSet
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+final class SymbolTable {
+
+    /**
+     * Initial count of names
+     */
+    private static final int CAPACITY = 8;
+
+    /**
+     * Names, index is the name id
+     */
+    private String[] names;
+
+    /**
+     * Hash table of name ids + 1, 0 for empty slots
+     */
+    private int[] table;
+
+    /**
+     * Count of names
+     */
+    private int size;
+
+    /**
+     * Builds an empty table
+     */
+    SymbolTable() {
+        this.names = new String[CAPACITY];
+        this.table = new int[CAPACITY * 2];
+    }
+
+    /**
+     * Builds a table of given names, ids are the indexes in the array
+     *
+     * @param names Distinct tag names
+     */
+    SymbolTable(final String[] names) {
+        this();
+        for (final String name : names) {
+            add(name, 0, name.length());
+        }
+    }
+
+    /**
+     * Gets the count of names
+     *
+     * @return Count of names
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a name by it's id
+     *
+     * @param id Name id
+     * @return Name in the form it has in source XML
+     */
+    String name(final int id) {
+        return names[id];
+    }
+
+    /**
+     * Looks up a name
+     *
+     * @param xml Source XML
+     * @param start Name start
+     * @param end Name end (exclusive)
+     * @return Name id or -1 if name is not known
+     */
+    int lookup(final CharSequence xml, final int start, final int end) {
+        final int mask = table.length - 1;
+        int slot = hash(xml, start, end) & mask;
+        while (table[slot] != 0) {
+            if (XmlUtils.regionEquals(xml, start, end,
+                    names[table[slot] - 1])) {
+                return table[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up a name and adds it if it's not known yet
+     *
+     * @param xml Source XML
+     * @param start Name start
+     * @param end Name end (exclusive)
+     * @return Name id
+     */
+    int add(final CharSequence xml, final int start, final int end) {
+        final int id = lookup(xml, start, end);
+        if (id != -1) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = new StringBuilder(end - start).append(xml, start, end)
+                .toString();
+        size++;
+        if (size * 2 > table.length) {
+            table = new int[table.length * 2];
+            for (int i = 0; i < size; i++) {
+                insert(i);
+            }
+        } else {
+            insert(size - 1);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Makes a table that can be looked up in given XML, i.e. names
+     * converted to bytes for {@link com.googlecode.xmlzen.utils.XmlBytes}.
+     * Ids stay the same.
+     *
+     * @param xml Source XML
+     * @return This table if no name needs converting
+     */
+    SymbolTable encode(final CharSequence xml) {
+        String[] encoded = null;
+        for (int i = 0; i < size; i++) {
+            final String name = XmlUtils.encode(xml, names[i]);
+            if (name != names[i]) {
+                if (encoded == null) {
+                    encoded = Arrays.copyOf(names, size);
+                }
+                encoded[i] = name;
+            }
+        }
+        return encoded == null ? this : new SymbolTable(encoded);
+    }
+
+    /**
+     * Puts a name id into the first free slot of it's hash
+     */
+    private void insert(final int id) {
+        final int mask = table.length - 1;
+        int slot = hash(names[id], 0, names[id].length()) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    /**
+     * Hashes a region of chars, same as {@link String#hashCode()} with
+     * spread high bits
+     */
+    private static int hash(final CharSequence chars, final int start,
+            final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Decides whether a tag is wanted by looking at it's start tag only, 
+ * before anything is sliced or copied. Used with 
+ * {@link XmlSlicer#getTags(String, TagFilter)} and friends, so tags that 
+ * are filtered out cost nothing but a scan. Example:
+ * <pre>
+ * //only open orders are sliced
+ * XmlSlicerList open = XmlSlicer.cut(xml).getTags("order", 
+ *     TagFilter.attributeEquals("status", "open"));
+ * </pre>
+ * <p>
+ * Custom filters work with offsets into source XML, i.e. with 
+ * {@link XmlUtils#findAttribute(CharSequence, String, int, int, int[])}. 
+ * Filters returned by the factory methods can be shared between threads.
+ * They encode the value once per source XML and reuse their offsets 
+ * array, so checking a tag makes no objects.</p>
+ *
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public abstract class TagFilter {
+
+    /**
+     * Decides whether the tag is wanted
+     *
+     * @param xml Source XML
+     * @param start Offset of "&lt;" of the start tag
+     * @param end Offset right after "&gt;" of the start tag
+     * @return true if the tag is wanted
+     */
+    public abstract boolean accept(CharSequence xml, int start, int end);
+
+    /**
+     * Makes a filter that accepts tags with the given attribute value. 
+     * Values are compared as they are written in XML.
+     *
+     * @param attribute Attribute name
+     * @param value Attribute value
+     * @return Filter
+     */
+    public static TagFilter attributeEquals(final String attribute, 
+            final String value) {
+        return new AttributeFilter(attribute, value, false);
+    }
+
+    /**
+     * Makes a filter that accepts tags with attribute value that starts 
+     * with the given prefix.
+     *
+     * @param attribute Attribute name
+     * @param prefix Start of attribute value
+     * @return Filter
+     */
+    public static TagFilter attributeStartsWith(final String attribute, 
+            final String prefix) {
+        return new AttributeFilter(attribute, prefix, true);
+    }
+
+    /**
+     * Compares an attribute value right in source XML
+     */
+    private static final class AttributeFilter extends TagFilter {
+
+        /**
+         * Attribute name
+         */
+        private final String attribute;
+
+        /**
+         * Wanted value or it's prefix
+         */
+        private final String value;
+
+        /**
+         * Is value a prefix?
+         */
+        private final boolean prefix;
+
+        /**
+         * State of the last scan, so tags of the same XML are checked 
+         * without making any objects
+         */
+        private volatile Scan last;
+
+        AttributeFilter(final String attribute, final String value, 
+                final boolean prefix) {
+            this.attribute = attribute;
+            this.value = value;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean accept(final CharSequence xml, final int start, 
+                final int end) {
+            Scan scan = last;
+            if (scan == null || scan.xml != xml 
+                    || scan.thread != Thread.currentThread()) {
+                scan = new Scan(xml, XmlUtils.encode(xml, value));
+                last = scan;
+            }
+            final int[] offsets = scan.offsets;
+            if (!XmlUtils.findFirstTagAttribute(xml, start, end, attribute, 
+                    offsets)) {
+                return false;
+            }
+            final int valueStart = offsets[XmlUtils.ATTRIBUTE_VALUE_START];
+            int valueEnd = offsets[XmlUtils.ATTRIBUTE_VALUE_END];
+            if (prefix) {
+                valueEnd = Math.min(valueEnd, 
+                        valueStart + scan.encoded.length());
+            }
+            return XmlUtils.regionEquals(xml, valueStart, valueEnd, 
+                    scan.encoded);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + (prefix ? "^=" : "=") + value;
+        }
+    }
+
+    /**
+     * Encoded value and offsets array of a single thread scanning a single 
+     * source XML. Filters are shared, so a thread that finds the state of 
+     * another thread or XML makes it's own.
+     */
+    private static final class Scan {
+
+        /**
+         * Source XML
+         */
+        private final CharSequence xml;
+
+        /**
+         * Thread that owns the offsets
+         */
+        private final Thread thread = Thread.currentThread();
+
+        /**
+         * Value in the form it has in source XML
+         */
+        private final String encoded;
+
+        /**
+         * Offsets of the attribute
+         */
+        private final int[] offsets = new int[4];
+
+        Scan(final CharSequence xml, final String encoded) {
+            this.xml = xml;
+            this.encoded = encoded;
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A resumable position in XML for reading tags with the same name one by 
+ * one. Cursor holds only the tag name and a <code>long</code> offset, so 
+ * it can be saved (or serialized) after every processed tag, and a job 
+ * that was stopped can continue from the last processed tag instead of 
+ * reading the XML from the start.
+ * <p>
+ * Offsets count chars of the sliced XML when reading from an 
+ * {@link XmlSlicer} (bytes for mapped files, see 
+ * {@link XmlSlicer#cut(java.nio.file.Path, String)}), and bytes when reading
+ * from a stream or a {@link MappedXml} file of any size. Example:</p>
+ * <pre>
+ * XmlCursor cursor = loadCursor(); //i.e. new XmlCursor("record") at first
+ * XmlStream records = cursor.stream(new FileInputStream(file), "UTF-8");
+ * try {
+ *     for (XmlSlicer record : records) {
+ *         process(record);
+ *         saveCursor(cursor);
+ *     }
+ * } finally {
+ *     records.close();
+ * }
+ * </pre>
+ * <p>
+ * XmlCursor is not thread safe.</p>
+ *
+ * @see XmlStream#getPosition()
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class XmlCursor implements Serializable {
+
+    private static final long serialVersionUID = -6093813707262472214L;
+
+    /**
+     * Target tag name
+     */
+    private final String tag;
+
+    /**
+     * Offset where the next tag is looked for
+     */
+    private long position;
+
+    /**
+     * Builds a cursor at the start of XML
+     *
+     * @param tag Target tag name
+     */
+    public XmlCursor(final String tag) {
+        this(tag, 0);
+    }
+
+    /**
+     * Builds a cursor at the given position, i.e. one that was saved with 
+     * {@link #getPosition()}.
+     *
+     * @param tag Target tag name
+     * @param position Offset where the next tag is looked for
+     */
+    public XmlCursor(final String tag, final long position) {
+        if (position < 0) {
+            throw new XmlZenException("Negative cursor position: " 
+                    + position);
+        }
+        this.tag = tag;
+        this.position = position;
+    }
+
+    /**
+     * Gets the target tag name
+     *
+     * @return Tag name
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Gets the offset where the next tag is looked for. Right after a tag 
+     * is returned, this is the end of that tag.
+     *
+     * @return Offset in chars or bytes
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves the cursor
+     *
+     * @param position Offset where the next tag is looked for
+     */
+    public void moveTo(final long position) {
+        this.position = position;
+    }
+
+    /**
+     * Gets the next tag from the slice and moves the cursor after it.
+     * Position counts from the start of the slice.
+     *
+     * @param source XML to read the tag from
+     * @return Next tag or null if there are no more tags
+     */
+    public XmlSlicer next(final XmlSlicer source) {
+        return source.next(this);
+    }
+
+    /**
+     * Gets the next tag from a mapped file of any size and moves the cursor
+     * after it. Position counts bytes from the start of the file.
+     *
+     * @param source File to read the tag from
+     * @return Next tag or null if there are no more tags
+     */
+    public XmlSlicer next(final MappedXml source) {
+        return source.next(this);
+    }
+
+    /**
+     * Reads tags from a stream, starting at this cursor's position. The
+     * cursor follows the stream: after a tag is returned, it's position is
+     * right after that tag.
+     * <p>
+     * Bytes before the position are skipped. A {@link FileInputStream} is 
+     * not read, but positioned at once.</p>
+     *
+     * @see XmlSlicer#stream(InputStream, String, String)
+     * @param in Source of XML, must be at the start of XML
+     * @param charset Charset of the stream, must be ASCII compatible
+     * @return XmlStream that moves this cursor
+     */
+    public XmlStream stream(final InputStream in, final String charset) {
+        if (in instanceof FileInputStream) {
+            return stream(((FileInputStream) in).getChannel(), charset);
+        }
+        return stream(Channels.newChannel(in), charset);
+    }
+
+    /**
+     * Reads tags from a channel, starting at this cursor's position. 
+     * Seekable channels, i.e. {@link java.nio.channels.FileChannel}, are 
+     * positioned instead of reading the skipped bytes.
+     *
+     * @see #stream(InputStream, String)
+     * @param channel Source of XML, must be at the start of XML
+     * @param charset Charset of the stream, must be ASCII compatible
+     * @return XmlStream that moves this cursor
+     */
+    public XmlStream stream(final ReadableByteChannel channel, 
+            final String charset) {
+        return new XmlStream(channel, Charset.forName(charset), this);
+    }
+
+    /**
+     * Returns tag name and position, i.e. "record@1024"
+     */
+    @Override
+    public String toString() {
+        return tag + "@" + position;
+    }
+
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.Arrays;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * A structural index of XML - all tags found in a single pass, stored in
+ * primitive arrays.
+ * <p>
+ * For every tag the index holds the tag name id, offsets of the tag and
+ * it's trimmed value, the index of the parent tag and the depth. Tag names
+ * are kept in a small symbol table, so looking for a tag is an integer
+ * comparison, and all tags with the same name are kept in a sorted list, so
+ * the first tag after some offset is found with a binary search.</p>
+ * <p>
+ * Tags are matched by the same rules as
+ * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])} uses, so
+ * an indexed {@link XmlSlicer} returns the same results as a plain one.
+ * Declarations, comments and other markup that starts with "&lt;?" or
+ * "&lt;!" are not indexed, but tags inside them are (see 
+ * {@link XmlUtils#isTagName(CharSequence, int, int)}).</p>
+ * <p>
+ * XmlIndex is immutable once built and can be shared between threads.</p>
+ *
+ * @see XmlSlicer#index()
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class XmlIndex {
+
+    /**
+     * Initial capacity of tag arrays
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * Indexed XML
+     */
+    private final CharSequence xml;
+
+    /**
+     * Distinct tag names, in the same form as source chars
+     */
+    private final SymbolTable names = new SymbolTable();
+
+    /**
+     * Count of tags
+     */
+    private int size;
+
+    /**
+     * Name id of every tag
+     */
+    private int[] nameIds = new int[CAPACITY];
+
+    /**
+     * Offset of "&lt;tag" of every tag
+     */
+    private int[] tagStarts = new int[CAPACITY];
+
+    /**
+     * Offset of trimmed value of every tag, -1 if tag is closed immediately
+     */
+    private int[] valueStarts = new int[CAPACITY];
+
+    /**
+     * End offset of trimmed value of every tag, -1 if tag is closed
+     * immediately
+     */
+    private int[] valueEnds = new int[CAPACITY];
+
+    /**
+     * End offset of every tag, -1 if tag is never closed
+     */
+    private int[] tagEnds = new int[CAPACITY];
+
+    /**
+     * Index of parent tag of every tag, -1 for top level tags
+     */
+    private int[] parents = new int[CAPACITY];
+
+    /**
+     * Depth of every tag, 0 for top level tags
+     */
+    private int[] depths = new int[CAPACITY];
+
+    /**
+     * Start of tag list of every name id in {@link #byName}
+     */
+    private int[] byNameStarts;
+
+    /**
+     * Tag indexes grouped by name id, in document order
+     */
+    private int[] byName;
+
+    /**
+     * Builds the index of a region of XML. Use {@link XmlSlicer#index()}
+     * for indexing XML.
+     *
+     * @param xml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     */
+    XmlIndex(final CharSequence xml, final int from, final int to) {
+        this.xml = xml;
+        tokenize(from, to);
+        groupByName();
+    }
+
+    /**
+     * Gets the count of indexed tags
+     *
+     * @return Count of tags
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the name of a tag
+     *
+     * @param tag Tag index
+     * @return Tag name
+     */
+    public String getName(final int tag) {
+        final int nameStart = tagStarts[tag] + 1;
+        return XmlUtils.substring(xml, nameStart,
+                nameStart + names.name(nameIds[tag]).length());
+    }
+
+    /**
+     * Gets the offset of a tag in source XML
+     *
+     * @param tag Tag index
+     * @return Offset of "&lt;tag"
+     */
+    public int getTagStart(final int tag) {
+        return tagStarts[tag];
+    }
+
+    /**
+     * Gets the end offset of a tag in source XML
+     *
+     * @param tag Tag index
+     * @return End offset of "&lt;/tag&gt;" or "/&gt;", -1 if tag is never
+     *         closed
+     */
+    public int getTagEnd(final int tag) {
+        return tagEnds[tag];
+    }
+
+    /**
+     * Gets the parent of a tag
+     *
+     * @param tag Tag index
+     * @return Index of parent tag or -1 for top level tags
+     */
+    public int getParent(final int tag) {
+        return parents[tag];
+    }
+
+    /**
+     * Gets the depth of a tag
+     *
+     * @param tag Tag index
+     * @return Count of parents
+     */
+    public int getDepth(final int tag) {
+        return depths[tag];
+    }
+
+    /**
+     * Same as {@link XmlUtils#findTag(CharSequence, String, int, int, int[])}
+     * but answered from the index.
+     *
+     * @param tag Target tag
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param bounds Array of at least 4 elements to be filled with offsets
+     * @return true if the tag was found, false otherwise
+     */
+    boolean findTag(final String tag, final int from, final int to,
+            final int[] bounds) {
+        final int first = first(tag, from);
+        if (first == -1) {
+            return false;
+        }
+        final int found = byName[first];
+        final int nameEnd = tagStarts[found] + 1
+                + names.name(nameIds[found]).length();
+        if (nameEnd >= to || tagEnds[found] == -1 || tagEnds[found] > to) {
+            return false;
+        }
+        bounds[XmlUtils.TAG_START] = tagStarts[found];
+        bounds[XmlUtils.VALUE_START] = valueStarts[found];
+        bounds[XmlUtils.VALUE_END] = valueEnds[found];
+        bounds[XmlUtils.TAG_END] = tagEnds[found];
+        return true;
+    }
+
+    /**
+     * Same as {@link XmlUtils#getAttribute(CharSequence, int, int, String,
+     * String)} but the tag is found in the index.
+     *
+     * @param tag Tag name
+     * @param attribute Attribute name
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Value of the attribute
+     */
+    String getAttribute(final String tag, final String attribute,
+            final int from, final int to) {
+        int next = first(tag, from);
+        if (next == -1) {
+            return null;
+        }
+        final int last = byNameStarts[nameIds[byName[next]] + 1];
+        //attributes are looked for only in tags that have whitespace after
+        //the name
+        for (; next < last; next++) {
+            final int nameEnd = tagStarts[byName[next]] + 1
+                    + names.name(nameIds[byName[next]]).length();
+            if (nameEnd >= to) {
+                return null;
+            }
+            if (xml.charAt(nameEnd) <= ' ') {
+                return XmlUtils.getAttributeInRange(xml, attribute,
+                        nameEnd, to);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first tag with the given name that starts at or after the
+     * given offset.
+     *
+     * @param tag Tag name
+     * @param from Offset to start from
+     * @return Position of the tag in {@link #byName} or -1 if not found
+     */
+    private int first(final String tag, final int from) {
+        final String name = XmlUtils.encode(xml, tag);
+        final int id = names.lookup(name, 0, name.length());
+        if (id == -1) {
+            return -1;
+        }
+        final int last = byNameStarts[id + 1];
+        int low = byNameStarts[id];
+        int high = last;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (tagStarts[byName[middle]] < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low == last ? -1 : low;
+    }
+
+    /**
+     * Single pass through the markup that collects all tags
+     *
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     */
+    private void tokenize(final int from, final int to) {
+        //stack of open tags, for parents and depths
+        int[] open = new int[CAPACITY];
+        int depth = 0;
+        //per name stacks of unclosed tags, linked through previous
+        int[] lastOpen = new int[CAPACITY];
+        int[] previous = new int[CAPACITY];
+        int offset = from;
+        while (true) {
+            final int markup = XmlUtils.indexOf(xml, '<', offset, to);
+            if (markup == -1) {
+                return;
+            }
+            final boolean closing = markup + 1 < to
+                    && xml.charAt(markup + 1) == '/';
+            final int nameStart = closing ? markup + 2 : markup + 1;
+            final int nameEnd = XmlUtils.findNameEnd(xml, nameStart, to);
+            offset = markup + 1;
+            if (nameEnd == to 
+                    || !XmlUtils.isTagName(xml, nameStart, nameEnd)) {
+                continue;
+            }
+            final int id = names.add(xml, nameStart, nameEnd);
+            final int markupEnd = XmlUtils.indexOf(xml, '>', nameEnd, to);
+            if (closing) {
+                if (markupEnd == -1) {
+                    return;
+                }
+                offset = markupEnd + 1;
+                if (id >= lastOpen.length || lastOpen[id] == 0) {
+                    continue;
+                }
+                final int tag = lastOpen[id] - 1;
+                lastOpen[id] = previous[tag];
+                valueStarts[tag] = XmlUtils.trimStart(xml, valueStarts[tag],
+                        markup);
+                valueEnds[tag] = XmlUtils.trimEnd(xml, valueStarts[tag],
+                        markup);
+                tagEnds[tag] = offset;
+                //closes all unclosed tags inside this one as well
+                for (int i = depth - 1; i >= 0; i--) {
+                    if (open[i] == tag) {
+                        depth = i;
+                        break;
+                    }
+                }
+                continue;
+            }
+            final int tag = add(id, markup, depth == 0 ? -1 : open[depth - 1],
+                    depth);
+            if (markupEnd == -1) {
+                return;
+            }
+            offset = markupEnd + 1;
+            if (xml.charAt(markupEnd - 1) == '/') {
+                valueStarts[tag] = -1;
+                valueEnds[tag] = -1;
+                tagEnds[tag] = offset;
+                continue;
+            }
+            valueStarts[tag] = offset;
+            if (id >= lastOpen.length) {
+                lastOpen = Arrays.copyOf(lastOpen, 
+                        Math.max(id + 1, lastOpen.length * 2));
+            }
+            if (tag >= previous.length) {
+                previous = Arrays.copyOf(previous, nameIds.length);
+            }
+            previous[tag] = lastOpen[id];
+            lastOpen[id] = tag + 1;
+            if (depth == open.length) {
+                open = Arrays.copyOf(open, depth * 2);
+            }
+            open[depth++] = tag;
+        }
+    }
+
+    /**
+     * Adds a tag to the index, tag is not closed yet.
+     *
+     * @return Tag index
+     */
+    private int add(final int id, final int tagStart, final int parent,
+            final int depth) {
+        if (size == nameIds.length) {
+            final int capacity = size * 2;
+            nameIds = Arrays.copyOf(nameIds, capacity);
+            tagStarts = Arrays.copyOf(tagStarts, capacity);
+            valueStarts = Arrays.copyOf(valueStarts, capacity);
+            valueEnds = Arrays.copyOf(valueEnds, capacity);
+            tagEnds = Arrays.copyOf(tagEnds, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        nameIds[size] = id;
+        tagStarts[size] = tagStart;
+        tagEnds[size] = -1;
+        parents[size] = parent;
+        depths[size] = depth;
+        return size++;
+    }
+
+    /**
+     * Groups tag indexes by name id. Tags are already in document order.
+     */
+    private void groupByName() {
+        byNameStarts = new int[names.size() + 1];
+        for (int i = 0; i < size; i++) {
+            byNameStarts[nameIds[i] + 1]++;
+        }
+        for (int i = 0; i < names.size(); i++) {
+            byNameStarts[i + 1] += byNameStarts[i];
+        }
+        final int[] next = Arrays.copyOf(byNameStarts, names.size());
+        byName = new int[size];
+        for (int i = 0; i < size; i++) {
+            byName[next[nameIds[i]]++] = i;
+        }
+    }
+}
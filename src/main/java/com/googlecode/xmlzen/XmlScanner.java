@@ -0,0 +1,215 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.util.Arrays;
+
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Walks through XML once and reports every tag, attribute and text to a 
+ * {@link ScanHandler}. Tags are recognized by the same rules as 
+ * {@link XmlUtils} uses: a tag name ends with whitespace, "/" or "&gt;", 
+ * attributes are read by 
+ * {@link XmlUtils#nextAttribute(CharSequence, int, int, int[])}. Markup
+ * that is not a tag (see {@link XmlUtils#isTagName(CharSequence, int, int)}),
+ * such as comments, CDATA and declarations, is reported as text, and tags
+ * inside it are reported as tags, so scanning finds the same tags as 
+ * {@link XmlSlicer#getTags(String)}.
+ * <p>
+ * The only objects made are the stack of open tags, which grows with 
+ * the depth of XML, and a single array for attribute offsets.</p>
+ *
+ * @see XmlSlicer#scan(ScanHandler)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+final class XmlScanner {
+
+    /**
+     * Source XML
+     */
+    private final CharSequence xml;
+
+    /**
+     * End offset of the region (exclusive)
+     */
+    private final int to;
+
+    /**
+     * Receives events
+     */
+    private final ScanHandler handler;
+
+    /**
+     * Offsets of the last attribute
+     */
+    private final int[] attribute = new int[4];
+
+    /**
+     * Name start and end of every open tag
+     */
+    private int[] stack = new int[64];
+
+    /**
+     * Count of open tags
+     */
+    private int depth;
+
+    /**
+     * Builds the scanner
+     *
+     * @param xml Source XML
+     * @param to End offset of the region (exclusive)
+     * @param handler Receives events
+     */
+    private XmlScanner(final CharSequence xml, final int to, 
+            final ScanHandler handler) {
+        this.xml = xml;
+        this.to = to;
+        this.handler = handler;
+    }
+
+    /**
+     * Scans a region of XML
+     *
+     * @param xml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param handler Receives events
+     */
+    static void scan(final CharSequence xml, final int from, final int to, 
+            final ScanHandler handler) {
+        new XmlScanner(xml, to, handler).scan(from);
+    }
+
+    /**
+     * Scans the region from the given offset to the end
+     *
+     * @param from Start offset
+     */
+    private void scan(final int from) {
+        int offset = from;
+        int text = from;
+        while (offset < to) {
+            final int markup = XmlUtils.indexOf(xml, '<', offset, to);
+            if (markup == -1 || markup + 1 >= to) {
+                break;
+            }
+            final boolean closing = xml.charAt(markup + 1) == '/';
+            final int nameStart = closing ? markup + 2 : markup + 1;
+            final int nameEnd = XmlUtils.findNameEnd(xml, nameStart, to);
+            if (nameEnd == to) {
+                break;
+            }
+            if (!XmlUtils.isTagName(xml, nameStart, nameEnd)) {
+                //a "<" in text, comment or declaration
+                offset = markup + 1;
+                continue;
+            }
+            final int markupEnd = closing 
+                    ? XmlUtils.indexOf(xml, '>', nameEnd, to) : markup;
+            if (markupEnd == -1) {
+                break;
+            }
+            if (markup > text) {
+                handler.text(xml, text, markup, depth);
+            }
+            if (closing) {
+                close(nameStart, nameEnd);
+                offset = markupEnd + 1;
+            } else {
+                offset = open(nameStart, nameEnd);
+            }
+            text = offset;
+        }
+        if (text < to) {
+            handler.text(xml, text, to, depth);
+        }
+        //tags that were never closed
+        while (depth > 0) {
+            depth--;
+            handler.endTag(xml, stack[depth * 2], stack[depth * 2 + 1], 
+                    depth);
+        }
+    }
+
+    /**
+     * Reports an opening tag and it's attributes. A tag that is cut by the 
+     * end of the region after it's name is reported as a tag with the 
+     * attributes that are complete, and closed right away.
+     *
+     * @param nameStart Tag name start
+     * @param nameEnd Tag name end
+     * @return Offset right after the tag, or end of the region if the tag 
+     *         is cut after it's name
+     */
+    private int open(final int nameStart, final int nameEnd) {
+        handler.startTag(xml, nameStart, nameEnd, depth);
+        int offset = nameEnd;
+        int next;
+        while ((next = XmlUtils.nextAttribute(xml, offset, to, attribute)) 
+                != -1) {
+            handler.attribute(xml, attribute[XmlUtils.ATTRIBUTE_NAME_START], 
+                    attribute[XmlUtils.ATTRIBUTE_NAME_END], 
+                    attribute[XmlUtils.ATTRIBUTE_VALUE_START],
+                    attribute[XmlUtils.ATTRIBUTE_VALUE_END], depth);
+            offset = next;
+        }
+        final int markupEnd = XmlUtils.indexOf(xml, '>', offset, to);
+        if (markupEnd == -1) {
+            handler.endTag(xml, nameStart, nameEnd, depth);
+            return to;
+        }
+        if (xml.charAt(markupEnd - 1) == '/') {
+            handler.endTag(xml, nameStart, nameEnd, depth);
+        } else {
+            if (depth * 2 + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[depth * 2] = nameStart;
+            stack[depth * 2 + 1] = nameEnd;
+            depth++;
+        }
+        return markupEnd + 1;
+    }
+
+    /**
+     * Reports a closing tag, and closes all open tags inside it. Closing 
+     * tags that do not match any open tag are ignored.
+     *
+     * @param nameStart Tag name start
+     * @param nameEnd Tag name end
+     */
+    private void close(final int nameStart, final int nameEnd) {
+        int open = depth - 1;
+        while (open >= 0 && !XmlUtils.regionEquals(xml, stack[open * 2], 
+                stack[open * 2 + 1], nameStart, nameEnd)) {
+            open--;
+        }
+        if (open < 0) {
+            return;
+        }
+        while (depth - 1 > open) {
+            depth--;
+            handler.endTag(xml, stack[depth * 2], stack[depth * 2 + 1], 
+                    depth);
+        }
+        depth--;
+        handler.endTag(xml, nameStart, nameEnd, depth);
+    }
+}
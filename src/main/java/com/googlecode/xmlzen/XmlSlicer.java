@@ -17,10 +17,27 @@
 package com.googlecode.xmlzen;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.googlecode.xmlzen.utils.FileUtils;
-import com.googlecode.xmlzen.utils.Value;
+import com.googlecode.xmlzen.utils.XmlBytes;
 import com.googlecode.xmlzen.utils.XmlUtils;
 
 /**
@@ -53,15 +70,60 @@ import com.googlecode.xmlzen.utils.XmlUtils;
  * }
  * </pre>
  * 
+ * <p>
+ * XmlSlicer is a view of a region of the source XML, so slicing does not 
+ * copy anything - the chained calls only narrow the offsets. A String is 
+ * made only when {@link #toString()}, {@link #value()} or 
+ * {@link #attribute(String)} is called. Keep in mind that a small slice 
+ * holds a reference to the whole source XML, use <code>toString()</code> if
+ * you need to keep the slice for a long time.</p>
+ * 
  * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
  * @version $Id$
  */
-public class XmlSlicer {
+public class XmlSlicer implements CharSequence {
 
     /**
-     * A piece of XML that is currently being sliced
+     * Slices smaller than this (1M chars) are not worth scanning in 
+     * parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    
+    /**
+     * Minimal size of a chunk that is scanned by a single thread
+     */
+    private static final int PARALLEL_CHUNK = 1 << 18;
+    
+    /**
+     * Streamed regions smaller than this (16K chars) are not split
+     */
+    private static final int STREAM_SPLIT = 1 << 14;
+    
+    /**
+     * Source XML that is currently being sliced
+     */
+    private final CharSequence xml;
+    
+    /**
+     * Start offset of the current slice in source XML (inclusive)
+     */
+    private final int start;
+    
+    /**
+     * End offset of the current slice in source XML (exclusive)
      */
-    private final String xml;
+    private final int end;
+    
+    /**
+     * Structural index of source XML, null if XML is not indexed
+     */
+    private final XmlIndex index;
+    
+    /**
+     * Decoded chars of a slice of {@link XmlBytes}, made on the first call 
+     * of a CharSequence method
+     */
+    private String text;
     
     /**
      * A private constructor that builds the XmlSlicer. Use 
@@ -71,7 +133,23 @@ public class XmlSlicer {
      * @param xml Source XML String
      */
     private XmlSlicer(final String xml) {
+        this(xml, 0, xml == null ? 0 : xml.length(), null);
+    }
+    
+    /**
+     * A private constructor that builds a view of source XML region.
+     * 
+     * @param xml Source XML, can be null
+     * @param start Start offset of the region (inclusive)
+     * @param end End offset of the region (exclusive)
+     * @param index Structural index of source XML or null
+     */
+    private XmlSlicer(final CharSequence xml, final int start, 
+            final int end, final XmlIndex index) {
         this.xml = xml;
+        this.start = start;
+        this.end = end;
+        this.index = index;
     }
     
     /**
@@ -85,16 +163,70 @@ public class XmlSlicer {
         return new XmlSlicer(xmlString);
     }
 
+    /**
+     * Factory method that slices any {@link CharSequence}, i.e. a 
+     * {@link StringBuilder} or {@link XmlBytes}, without copying it.
+     * 
+     * @param xml Source XML
+     * @return new instance of XmlSlicer
+     */
+    public static XmlSlicer cut(final CharSequence xml) {
+        return new XmlSlicer(xml, 0, xml.length(), null);
+    }
+
+    /**
+     * Factory method that slices encoded XML bytes.
+     * 
+     * @see #cut(ByteBuffer, String)
+     * @param bytes Encoded XML, must not be changed while it's sliced
+     * @param charset Charset of the bytes
+     * @return new instance of XmlSlicer
+     */
+    public static XmlSlicer cut(final byte[] bytes, final String charset) {
+        return cut(ByteBuffer.wrap(bytes), charset);
+    }
+    
+    /**
+     * Factory method that slices encoded XML bytes, from position to limit
+     * of the buffer.
+     * <p>
+     * For ASCII compatible charsets (UTF-8, ISO-8859-x) tags and attributes
+     * are looked for directly in the bytes and only the results are 
+     * decoded, so there is no need to decode a whole message for reading a 
+     * few values out of it. Results are the same as if the bytes were 
+     * decoded to a String and sliced. Bytes in other charsets are decoded 
+     * right away.</p>
+     * <p>
+     * The returned XmlSlicer is still a CharSequence of decoded characters:
+     * {@link #length()}, {@link #charAt(int)} and 
+     * {@link #subSequence(int, int)} decode the slice on first use.</p>
+     * 
+     * @see XmlBytes
+     * @param bytes Encoded XML, must not be changed while it's sliced
+     * @param charset Charset of the bytes
+     * @return new instance of XmlSlicer
+     */
+    public static XmlSlicer cut(final ByteBuffer bytes, final String charset) {
+        final Charset cs = Charset.forName(charset);
+        if (!XmlBytes.isSupported(cs)) {
+            return new XmlSlicer(cs.decode(bytes.duplicate()).toString());
+        }
+        return cut(new XmlBytes(bytes, cs));
+    }
+    
     /**
      * Factory method that requires an XML in form of a File.
-     * System default charset is used.
+     * Charset is detected from byte order mark or &lt;?xml encoding="???"?&gt;
+     * header, while reading the file. If the file declares neither, system 
+     * default charset is used.
      *
      * @see #cut(java.io.File, String)
+     * @see FileUtils#readXmlFile(File)
      * @param file File that contains XML
      * @return new instance of XmlSlicer
      */
     public static XmlSlicer cut(final File file) {
-        return new XmlSlicer(FileUtils.readFile(file));
+        return new XmlSlicer(FileUtils.readXmlFile(file));
     }
 
     /**
@@ -108,6 +240,227 @@ public class XmlSlicer {
         return new XmlSlicer(FileUtils.readFile(file, charset));
     }
     
+    /**
+     * Factory method that maps a File into memory instead of reading it.
+     * System default charset is used.
+     * 
+     * @see #cut(Path, String)
+     * @param path Path of the File that contains XML
+     * @return new instance of XmlSlicer
+     */
+    public static XmlSlicer cut(final Path path) {
+        return cut(path, Charset.defaultCharset().name());
+    }
+    
+    /**
+     * Factory method that maps a File into memory instead of reading it.
+     * <p>
+     * For ASCII compatible charsets (UTF-8, ISO-8859-x) tags are looked for 
+     * directly in the mapped bytes and only the results are decoded, so 
+     * huge files can be sliced with a small heap. Files in other charsets 
+     * are read with {@link FileUtils#readFile(File, String)}. Files larger 
+     * than 2 GB can be read with {@link #map(Path, String)}.</p>
+     *
+     * @see XmlBytes
+     * @param path Path of the File that contains XML
+     * @param charset Charset of the file
+     * @return new instance of XmlSlicer
+     */
+    public static XmlSlicer cut(final Path path, final String charset) {
+        final Charset cs = Charset.forName(charset);
+        if (!XmlBytes.isSupported(cs)) {
+            return cut(path.toFile(), charset);
+        }
+        final XmlBytes bytes = new XmlBytes(FileUtils.mapFile(path), cs);
+        return new XmlSlicer(bytes, 0, bytes.length(), null);
+    }
+    
+    /**
+     * Maps a File of any size, including files larger than 2 GB, that can 
+     * not be sliced as a whole. Tags are read from it one segment at a 
+     * time, so each single tag must fit into a segment (1 GB).
+     * 
+     * @see MappedXml
+     * @param path Path of the File that contains XML
+     * @param charset Charset of the file, must be ASCII compatible
+     * @return MappedXml that has to be closed after use
+     */
+    public static MappedXml map(final Path path, final String charset) {
+        return new MappedXml(path, Charset.forName(charset), 
+                MappedXml.SEGMENT);
+    }
+    
+    /**
+     * Reads, slices and extracts data from many files concurrently. A 
+     * failure of one file does not stop the batch, it's reported in the 
+     * result of that file. Example:
+     * 
+     * <pre>
+     * List&lt;BatchResult&lt;String&gt;&gt; ids = XmlSlicer.cutAll(paths, 
+     *     "UTF-8", 8, new BatchExtractor&lt;String&gt;() {
+     *         public String extract(Path path, XmlSlicer xml) {
+     *             return xml.get("id").toString();
+     *         }
+     *     });
+     * </pre>
+     * 
+     * @param <Type> Type of extracted data
+     * @param paths Files to process
+     * @param charset Charset of the files, or null for detecting it like 
+     *        {@link #cut(File)} does
+     * @param parallelism Maximum count of files processed at once
+     * @param extractor Extracts data from each file, called from many 
+     *        threads
+     * @return Results in the order of paths
+     * @throws XmlZenException if slicing a file fails with an Error, i.e. 
+     *         OutOfMemoryError, remaining files are skipped then
+     */
+    public static <Type> List<BatchResult<Type>> cutAll(
+            final Collection<Path> paths, final String charset, 
+            final int parallelism, final BatchExtractor<Type> extractor) {
+        final BatchSlicer<Type> batch = new BatchSlicer<Type>(paths, charset,
+                extractor, null);
+        batch.run(parallelism);
+        return batch.getResults();
+    }
+    
+    /**
+     * Same as {@link #cutAll(Collection, String, int, BatchExtractor)}, but
+     * results are passed to the listener as soon as each file is done, 
+     * instead of collecting them. Returns when all files are done.
+     * 
+     * @param <Type> Type of extracted data
+     * @param paths Files to process
+     * @param charset Charset of the files, or null for detecting it
+     * @param parallelism Maximum count of files processed at once
+     * @param extractor Extracts data from each file, called from many 
+     *        threads
+     * @param listener Receives the result of each file, called from many 
+     *        threads
+     * @throws XmlZenException if the listener throws an exception or 
+     *         slicing a file fails with an Error, remaining files are 
+     *         skipped then
+     */
+    public static <Type> void cutAll(final Collection<Path> paths, 
+            final String charset, final int parallelism, 
+            final BatchExtractor<Type> extractor, 
+            final BatchListener<Type> listener) {
+        new BatchSlicer<Type>(paths, charset, extractor, listener)
+            .run(parallelism);
+    }
+    
+    /**
+     * Reads tags from a stream one by one, without reading the whole 
+     * stream into memory. System default charset is used.
+     * 
+     * @see #stream(ReadableByteChannel, String, String)
+     * @param in Stream with XML
+     * @param tag Target tag name
+     * @return XmlStream - an Iterator of tags
+     */
+    public static XmlStream stream(final InputStream in, final String tag) {
+        return stream(in, tag, Charset.defaultCharset().name());
+    }
+    
+    /**
+     * Reads tags from a stream one by one, without reading the whole 
+     * stream into memory.
+     * 
+     * @see #stream(ReadableByteChannel, String, String)
+     * @param in Stream with XML
+     * @param tag Target tag name
+     * @param charset Charset of the stream
+     * @return XmlStream - an Iterator of tags
+     */
+    public static XmlStream stream(final InputStream in, final String tag,
+            final String charset) {
+        return stream(Channels.newChannel(in), tag, charset);
+    }
+    
+    /**
+     * Reads tags from a channel one by one, without reading the whole 
+     * stream into memory. Each tag is returned as soon as it's closing tag
+     * is read, results are the same as {@link #getTags(String)} would 
+     * return.
+     * <p>
+     * Charset must be ASCII compatible (UTF-8, ISO-8859-x).</p>
+     * 
+     * @see XmlStream
+     * @param channel Channel with XML
+     * @param tag Target tag name
+     * @param charset Charset of the stream
+     * @return XmlStream - an Iterator of tags
+     */
+    public static XmlStream stream(final ReadableByteChannel channel, 
+            final String tag, final String charset) {
+        return new XmlStream(channel, tag, Charset.forName(charset));
+    }
+    
+    /**
+     * Reads tags from a gzip compressed stream one by one, i.e. from a
+     * .xml.gz file. The stream is inflated on a separate thread into a 
+     * small ring of reusable buffers, so inflating and slicing overlap, 
+     * and neither compressed nor inflated XML is held in memory as a whole.
+     * <pre>
+     * XmlStream feed = XmlSlicer.streamGzip(
+     *     new FileInputStream("feed.xml.gz"), "item", "UTF-8");
+     * try {
+     *     for (XmlSlicer item : feed) {
+     *         System.out.println(item.get("title"));
+     *     }
+     * } finally {
+     *     feed.close();
+     * }
+     * </pre>
+     * 
+     * @see #stream(ReadableByteChannel, String, String)
+     * @param in Gzip compressed XML, closed with the XmlStream
+     * @param tag Target tag name
+     * @param charset Charset of inflated XML, must be ASCII compatible
+     * @return XmlStream that has to be closed after use
+     */
+    public static XmlStream streamGzip(final InputStream in, 
+            final String tag, final String charset) {
+        return stream(new InflatingChannel(in, InflatingChannel.BUFFERS, 
+                InflatingChannel.BUFFER), tag, charset);
+    }
+    
+    /**
+     * Follows a file that tags are appended to. Each 
+     * {@link XmlTail#poll()} returns the tags that were completed since 
+     * the last poll, reading only the new bytes.
+     * 
+     * @see XmlTail
+     * @param path Followed file
+     * @param tag Target tag name
+     * @param charset Charset of the file, must be ASCII compatible
+     * @return XmlTail that starts at the beginning of the file
+     */
+    public static XmlTail follow(final Path path, final String tag, 
+            final String charset) {
+        return follow(path, new XmlCursor(tag), charset);
+    }
+    
+    /**
+     * Follows a file from a saved position, i.e. after a restart.
+     * 
+     * @see #follow(Path, String, String)
+     * @param path Followed file
+     * @param cursor Target tag and position to follow from, the cursor is
+     *        moved by polling
+     * @param charset Charset of the file, must be ASCII compatible
+     * @return XmlTail
+     */
+    public static XmlTail follow(final Path path, final XmlCursor cursor, 
+            final String charset) {
+        final Charset cs = Charset.forName(charset);
+        if (!XmlBytes.isSupported(cs)) {
+            throw new XmlZenException("Charset is not ASCII compatible: "
+                    + charset);
+        }
+        return new XmlTail(path, cs, cursor);
+    }
+    
     /**
      * Gets the contents of an XML tag.
      * <p>
@@ -125,7 +478,11 @@ public class XmlSlicer {
      * @return Contents that are between &lt;tag&gt; and &lt;/tag&gt;
      */
     public XmlSlicer get(final String tag) {
-        return new XmlSlicer(XmlUtils.getTagValue(xml, tag));
+        final int[] bounds = new int[4];
+        if (!find(tag, "<".concat(tag), start, end, bounds)) {
+            return new XmlSlicer(null);
+        }
+        return slice(bounds, true);
     }
 
     /**
@@ -142,7 +499,11 @@ public class XmlSlicer {
      * @return Contents of the tag, including &lt;tag&gt; and &lt;/tag&gt;
      */
     public XmlSlicer getTag(final String tag) {
-        return new XmlSlicer(XmlUtils.getTagValue(xml, tag, null, null, false));
+        final int[] bounds = new int[4];
+        if (!find(tag, "<".concat(tag), start, end, bounds)) {
+            return new XmlSlicer(null);
+        }
+        return slice(bounds, false);
     }
     
     /**
@@ -170,6 +531,39 @@ public class XmlSlicer {
         return getTagValues(tag, true);
     }
     
+    /**
+     * Gets values of tags with the given name that have an attribute with 
+     * the given value. Tags are filtered by their start tags while 
+     * scanning, so only the matching ones are sliced.
+     * 
+     * @see #getAllValuesIn(String, TagFilter)
+     * @param tag Target xml tag name
+     * @param attribute Attribute name
+     * @param value Attribute value, as it is written in XML
+     * @return XmlSlicerList of matching tag values
+     */
+    public XmlSlicerList getAllValuesIn(final String tag, 
+            final String attribute, final String value) {
+        return getAllValuesIn(tag, TagFilter.attributeEquals(attribute, 
+                value));
+    }
+    
+    /**
+     * Gets values of tags with the given name that are accepted by the 
+     * filter. The filter looks at start tags while scanning, so only the 
+     * matching tags are sliced.
+     * 
+     * @see TagFilter
+     * @param tag Target xml tag name
+     * @param filter Decides by start tag which tags are wanted
+     * @return XmlSlicerList of matching tag values
+     */
+    public XmlSlicerList getAllValuesIn(final String tag, 
+            final TagFilter filter) {
+        return collect(new TagIterator(tag, "<".concat(tag), start, end, 
+                true, filter));
+    }
+    
     /**
      * Gets an XmlSlicerList (which is a {@link List}&lt;XmlSlicer&gt) that 
      * contains tags that share the same <code>tag</code> name.
@@ -195,78 +589,1197 @@ public class XmlSlicer {
     public XmlSlicerList getTags(final String tag) {
         return getTagValues(tag, false);
     }
+    
+    /**
+     * Gets tags with the given name that have an attribute with the given 
+     * value, i.e. only the open orders:
+     * 
+     * <pre>
+     * XmlSlicerList open = XmlSlicer.cut(xml).getTags("order", "status", 
+     *     "open");
+     * </pre>
+     * 
+     * Tags are filtered by their start tags while scanning, so the tags 
+     * that are filtered out are never sliced.
+     * 
+     * @see #getTags(String, TagFilter)
+     * @param tag Target xml tag name
+     * @param attribute Attribute name
+     * @param value Attribute value, as it is written in XML
+     * @return XmlSlicerList of matching tags
+     */
+    public XmlSlicerList getTags(final String tag, final String attribute, 
+            final String value) {
+        return getTags(tag, TagFilter.attributeEquals(attribute, value));
+    }
+    
+    /**
+     * Gets tags with the given name that are accepted by the filter. The 
+     * filter looks at start tags while scanning, so only the matching tags 
+     * are sliced.
+     * 
+     * @see TagFilter
+     * @param tag Target xml tag name
+     * @param filter Decides by start tag which tags are wanted
+     * @return XmlSlicerList of matching tags
+     */
+    public XmlSlicerList getTags(final String tag, final TagFilter filter) {
+        return collect(new TagIterator(tag, "<".concat(tag), start, end, 
+                false, filter));
+    }
 
     /**
-     * Used internally for getting a list of tags or tag values
+     * Same as {@link #getTags(String)}, but large XML is split into chunks 
+     * that are scanned concurrently in {@link ForkJoinPool#commonPool()}.
      * 
-     * @param tag Target tag name
-     * @param valuesOnly
-     * @return List of Tag values or Tags
+     * @see #getTagsParallel(String, ForkJoinPool)
+     * @param tag Target xml tag name
+     * @return XmlSlicerList - a List of XmlSlicer objects
      */
-    private XmlSlicerList getTagValues(final String tag, 
-            final boolean valuesOnly) {
-        final Value<Integer> startOffset = new Value<Integer>(0);
-        final Value<Integer> lastOffset = new Value<Integer>(0);
+    public XmlSlicerList getTagsParallel(final String tag) {
+        return getTagsParallel(tag, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Same as {@link #getTags(String)}, but large XML is split into chunks 
+     * that are scanned concurrently in the given pool. Results are in 
+     * document order and always equal to the results of 
+     * {@link #getTags(String)}.
+     * <p>
+     * Slices smaller than 1M chars and indexed slices are scanned 
+     * sequentially.</p>
+     * 
+     * @param tag Target xml tag name
+     * @param pool Pool for scanning the chunks
+     * @return XmlSlicerList - a List of XmlSlicer objects
+     */
+    public XmlSlicerList getTagsParallel(final String tag, 
+            final ForkJoinPool pool) {
+        if (xml == null || index != null 
+                || end - start < PARALLEL_THRESHOLD) {
+            return getTags(tag);
+        }
+        final int chunk = Math.max(PARALLEL_CHUNK, 
+                (end - start) / (pool.getParallelism() * 4));
+        final int[] found = ParallelTagFinder.findAll(xml, tag, start, end, 
+                pool, chunk);
         final XmlSlicerList results = new XmlSlicerList();
-        while (lastOffset.getValue() != -1) {
-            final String chunk = XmlUtils.getTagValue(xml, tag, 
-                    startOffset, lastOffset, valuesOnly);
-            startOffset.setValue(lastOffset.getValue());
-            if (lastOffset.getValue() != -1) {
-                results.add(new XmlSlicer(chunk));
-            }
+        results.ensureCapacity(found.length / 4);
+        for (int i = 0; i < found.length; i += 4) {
+            results.add(new XmlSlicer(xml, found[i + XmlUtils.TAG_START], 
+                    found[i + XmlUtils.TAG_END], null));
         }
         return results;
     }
     
     /**
-     * Gets the attribute value from an XML tag. Example:
+     * Counts tags with the given name, without collecting them. The result
+     * is the same as <code>getTags(tag).size()</code>.
+     * 
+     * @see #getTags(String)
+     * @param tag Target xml tag name
+     * @return Count of tags
+     */
+    public int count(final String tag) {
+        return count(tag, null);
+    }
+    
+    /**
+     * Checks if there is at least one tag with the given name. Scanning 
+     * stops at the first tag.
+     * 
+     * @param tag Target xml tag name
+     * @return true if tag is found
+     */
+    public boolean exists(final String tag) {
+        return xml != null && find(tag, "<".concat(tag), start, end, new int[4]);
+    }
+    
+    /**
+     * Counts tags with the given name that have an attribute with the given
+     * value. Attribute values are compared right in source XML, as they 
+     * are written there, so no Strings or arrays are made for the tags. 
+     * Same as 
+     * <code>count(tag, TagFilter.attributeEquals(attribute, value))</code>.
+     * Example:
      * 
      * <pre>
-     * //value of attr will be 'val'
-     * String attr = XmlSlicer.cut("&lt;xml attr="val"/&gt;")\
-     *     .getTagAttribute("xml", "attr");
+     * //count of failed checks
+     * int failed = XmlSlicer.cut(status).countWhere("check", "state", 
+     *     "FAILED");
      * </pre>
      * 
-     * @param tag tag name
-     * @param attribute attribute name
-     * @return tag attribute's value 
+     * @see #count(String)
+     * @param tag Target xml tag name
+     * @param attribute Attribute name
+     * @param value Attribute value
+     * @return Count of matching tags
      */
-    public String getTagAttribute(final String tag, final String attribute) {
-        return XmlUtils.getAttribute(xml, tag, attribute);
+    public int countWhere(final String tag, final String attribute, 
+            final String value) {
+        return count(tag, TagFilter.attributeEquals(attribute, value));
     }
     
     /**
-     * Gets the attribute value from the first XML tag. Example:
+     * Counts tags with the given name that are accepted by the filter, 
+     * without collecting them.
+     * 
+     * @see TagFilter
+     * @param tag Target xml tag name
+     * @param filter Decides by start tag which tags are counted, null for
+     *        counting all tags
+     * @return Count of matching tags
+     */
+    public int count(final String tag, final TagFilter filter) {
+        if (xml == null) {
+            return 0;
+        }
+        final String tagStart = "<".concat(tag);
+        final int[] bounds = new int[4];
+        int count = 0;
+        int offset = start;
+        while (find(tag, tagStart, offset, end, bounds)) {
+            if (accept(filter, bounds)) {
+                count++;
+            }
+            offset = bounds[XmlUtils.TAG_END];
+        }
+        return count;
+    }
+    
+    /**
+     * Lazy version of {@link #getTags(String)}. Tags are looked for only 
+     * when the Iterator is asked for them, so stopping early saves the 
+     * scanning of the rest of XML, and nothing is collected into a list.
+     * <p>Example use:</p>
      * 
      * <pre>
-     * //value of attr will be 'val'
-     * String attr = XmlSlicer.cut("&lt;xml attr="val"/&gt;")
-     *     .getTag("xml").attribute("attr");
+     * //finds the first bird with a name, ignores the rest of the nest
+     * for (XmlSlicer bird : XmlSlicer.cut(xml).iterateTags("bird")) {
+     *     if (bird.attribute("name") != null) {
+     *         return bird;
+     *     }
+     * }
      * </pre>
      * 
-     * @param attribute Attribute name
-     * @return First tag attribute's value 
+     * @see #getTags(String)
+     * @param tag Target xml tag name
+     * @return Iterable of tags, can be iterated many times
      */
-    public String attribute(final String attribute) {
-        return XmlUtils.getFirstTagAttribute(xml, attribute);
+    public Iterable<XmlSlicer> iterateTags(final String tag) {
+        return iterate(tag, false);
     }
     
     /**
-     * Gets the value from the first XML tag. Example:
+     * Lazy version of {@link #getAllValuesIn(String)}. Tags are looked for 
+     * only when the Iterator is asked for them.
+     * 
+     * @see #iterateTags(String)
+     * @param tag Target xml tag name
+     * @return Iterable of tag values, can be iterated many times
+     */
+    public Iterable<XmlSlicer> iterateValuesIn(final String tag) {
+        return iterate(tag, true);
+    }
+    
+    /**
+     * Used internally for iterating tags or tag values
      * 
+     * @param tag Target tag name
+     * @param valuesOnly Iterate tag values instead of tags
+     * @return Iterable that makes a new {@link TagIterator} every time
+     */
+    private Iterable<XmlSlicer> iterate(final String tag, 
+            final boolean valuesOnly) {
+        return new Iterable<XmlSlicer>() {
+            public Iterator<XmlSlicer> iterator() {
+                return new TagIterator(tag, "<".concat(tag), start, end, 
+                        valuesOnly, null);
+            }
+        };
+    }
+
+    /**
+     * Streams all tags with the given name, like {@link #getTags(String)}, 
+     * but tags are looked for only while the Stream is consumed. 
+     * <p>
+     * Tags are looked for lazily in both sequential and parallel Streams. A 
+     * parallel Stream splits the slice at tag boundaries of the sequential 
+     * scan and scans the parts in the threads of the pool it runs in, so 
+     * the scanning itself is shared between threads, not only the work on 
+     * the results. Either way, results are in document order and equal to 
+     * the results of {@link #getTags(String)}.</p>
      * <pre>
-     * //value of val will be '123'
-     * String val = XmlSlicer.cut(&lt;xml&gt;123&lt;/xml&gt;).value();
-     * @return Value of the first tag of current XML
+     * long expensive = XmlSlicer.cut(xml).streamTags("item").parallel()
+     *     .filter(item -&gt; item.get("price").asDouble() &gt; 100).count();
+     * </pre>
+     * 
+     * @see #getTags(String)
+     * @param tag Target xml tag name
+     * @return Sequential Stream of tags
      */
-    public String value() {
-        return XmlUtils.getFirstTagValue(xml);
+    public Stream<XmlSlicer> streamTags(final String tag) {
+        return StreamSupport.stream(new TagSpliterator(tag, 
+                "<".concat(tag), start, end, false), false);
     }
     
-    @Override
-    public String toString() {
-        return xml;
+    /**
+     * Streams values of all tags with the given name, like 
+     * {@link #getAllValuesIn(String)}.
+     * 
+     * @see #streamTags(String)
+     * @param tag Target xml tag name
+     * @return Sequential Stream of tag values
+     */
+    public Stream<XmlSlicer> streamValues(final String tag) {
+        return StreamSupport.stream(new TagSpliterator(tag, 
+                "<".concat(tag), start, end, true), false);
+    }
+
+    /**
+     * Used internally for getting a list of tags or tag values
+     * 
+     * @param tag Target tag name
+     * @param valuesOnly
+     * @return List of Tag values or Tags
+     */
+    private XmlSlicerList getTagValues(final String tag, 
+            final boolean valuesOnly) {
+        return collect(new TagIterator(tag, "<".concat(tag), start, end, 
+                valuesOnly, null));
+    }
+    
+    /**
+     * Collects all tags into a list
+     * 
+     * @param tags Iterator of tags
+     * @return XmlSlicerList with all tags
+     */
+    private static XmlSlicerList collect(final Iterator<XmlSlicer> tags) {
+        final XmlSlicerList results = new XmlSlicerList();
+        while (tags.hasNext()) {
+            results.add(tags.next());
+        }
+        return results;
+    }
+
+    /**
+     * Scans this slice once and reports every tag, attribute and text to
+     * the handler, SAX style. Events carry offsets into the source XML
+     * instead of Strings, so scanning does not make objects per event.
+     * <p>Example use:</p>
+     *
+     * <pre>
+     * //counts tags right inside the root tag
+     * final int[] children = new int[1];
+     * XmlSlicer.cut(xml).scan(new ScanHandler() {
+     *     public void startTag(CharSequence xml, int start, int end,
+     *             int depth) {
+     *         if (depth == 1) {
+     *             children[0]++;
+     *         }
+     *     }
+     * });
+     * </pre>
+     *
+     * @see ScanHandler
+     * @param handler Receives events
+     */
+    public void scan(final ScanHandler handler) {
+        if (xml == null) {
+            return;
+        }
+        XmlScanner.scan(xml, start, end, handler);
+    }
+
+    /**
+     * Compiles a path of tag names separated by "/", i.e. 
+     * "orders/order/line". Compiled path can be reused and shared between
+     * threads.
+     * 
+     * @see SlicePath
+     * @param path Path of tag names
+     * @return Compiled path
+     */
+    public static SlicePath compile(final String path) {
+        return new SlicePath(path);
+    }
+    
+    /**
+     * Compiles many paths that are evaluated together with 
+     * {@link #get(SlicePathSet)}. Compiled paths can be reused and shared
+     * between threads.
+     * 
+     * @see SlicePathSet
+     * @param paths Paths of tag names separated by "/"
+     * @return Compiled paths
+     */
+    public static SlicePathSet compileAll(final String... paths) {
+        return new SlicePathSet(paths);
+    }
+    
+    /**
+     * Gets the contents of the last tag of every path in a single pass 
+     * over XML. Same as calling {@link #get(SlicePath)} for every path, 
+     * but the cost barely depends on the count of paths.
+     * 
+     * @see #compileAll(String...)
+     * @param paths Compiled paths
+     * @return Contents of the last tag of each path, in the order of paths
+     */
+    public XmlSlicer[] get(final SlicePathSet paths) {
+        final XmlSlicer[] results = new XmlSlicer[paths.size()];
+        final int[] bounds = new int[paths.size() * 4];
+        if (xml != null) {
+            paths.find(xml, start, end, bounds);
+        } else {
+            Arrays.fill(bounds, -1);
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (bounds[i * 4 + XmlUtils.TAG_START] == -1 
+                    || bounds[i * 4 + XmlUtils.VALUE_START] == -1) {
+                results[i] = new XmlSlicer(null);
+            } else {
+                results[i] = new XmlSlicer(xml, 
+                        bounds[i * 4 + XmlUtils.VALUE_START], 
+                        bounds[i * 4 + XmlUtils.VALUE_END], index);
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Compiles a set of tag names for {@link #extract(FieldSet)}. Compiled 
+     * field set can be reused and shared between threads.
+     * 
+     * @see FieldSet
+     * @param tags Tag names
+     * @return Compiled field set
+     */
+    public static FieldSet fields(final String... tags) {
+        return new FieldSet(tags);
+    }
+    
+    /**
+     * Gets the contents of several XML tags in a single scan. Same as 
+     * calling {@link #get(String)} for every tag.
+     * 
+     * @see #extract(FieldSet)
+     * @param tags Target tag names
+     * @return Contents of the tags in the order of names
+     */
+    public XmlSlicer[] extract(final String... tags) {
+        return extract(new FieldSet(tags));
+    }
+    
+    /**
+     * Gets the contents of several XML tags in a single scan. Same as 
+     * calling {@link #get(String)} for every tag of the field set, but XML 
+     * is scanned once, not once per tag. Example:
+     * 
+     * <pre>
+     * FieldSet fields = XmlSlicer.fields("id", "name");
+     * XmlSlicer[] values = XmlSlicer.cut(
+     *     "&lt;u&gt;&lt;name&gt;Tom&lt;/name&gt;&lt;id&gt;7&lt;/id&gt;&lt;/u&gt;")
+     *     .extract(fields);
+     * //values[0] will be '7', values[1] - 'Tom'
+     * </pre>
+     * 
+     * @param fields Compiled field set
+     * @return Contents of the tags in the order of the field set
+     */
+    public XmlSlicer[] extract(final FieldSet fields) {
+        final int[] bounds = new int[fields.size() * 4];
+        find(fields, bounds);
+        final XmlSlicer[] results = new XmlSlicer[fields.size()];
+        for (int i = 0; i < results.length; i++) {
+            if (bounds[i * 4 + XmlUtils.TAG_START] == -1 
+                    || bounds[i * 4 + XmlUtils.VALUE_START] == -1) {
+                results[i] = new XmlSlicer(null);
+            } else {
+                results[i] = new XmlSlicer(xml, 
+                        bounds[i * 4 + XmlUtils.VALUE_START], 
+                        bounds[i * 4 + XmlUtils.VALUE_END], index);
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Finds several XML tags in a single scan and fills <code>bounds</code>
+     * with their offsets, without making any objects, so the same array 
+     * can be reused for every record. For each field 4 offsets are filled, 
+     * just like {@link XmlUtils#findTag(CharSequence, String, int, int, 
+     * int[])} does. Offsets are relative to this slice, so they can be 
+     * used with {@link #subSequence(int, int)}. For a slice of bytes they 
+     * are converted to offsets of decoded characters. 
+     * {@link XmlUtils#TAG_START} is -1 for tags that were not found.
+     * 
+     * @param fields Compiled field set
+     * @param bounds Array of at least 4 * fields.size() elements
+     * @return Count of tags that were found
+     */
+    public int extract(final FieldSet fields, final int[] bounds) {
+        final int found = find(fields, bounds);
+        //make offsets relative to this slice, in decoded chars
+        final XmlBytes bytes = xml instanceof XmlBytes ? (XmlBytes) xml : null;
+        for (int i = 0; i < fields.size() * 4; i += 4) {
+            if (bounds[i + XmlUtils.TAG_START] != -1) {
+                for (int j = i; j < i + 4; j++) {
+                    if (bounds[j] == -1) {
+                        continue;
+                    }
+                    bounds[j] = bytes == null ? bounds[j] - start 
+                            : bytes.charCount(start, bounds[j]);
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Finds tags of a field set, with offsets in source XML
+     * 
+     * @see #extract(FieldSet, int[])
+     */
+    private int find(final FieldSet fields, final int[] bounds) {
+        int found = 0;
+        if (xml == null) {
+            for (int i = 0; i < fields.size(); i++) {
+                bounds[i * 4 + XmlUtils.TAG_START] = -1;
+            }
+        } else if (index == null) {
+            found = fields.extract(xml, start, end, bounds);
+        } else {
+            //index finds every tag without scanning anyway
+            final int[] tag = new int[4];
+            for (int i = 0; i < fields.size(); i++) {
+                if (index.findTag(fields.getTag(i), start, end, tag)) {
+                    System.arraycopy(tag, 0, bounds, i * 4, 4);
+                    found++;
+                } else {
+                    bounds[i * 4 + XmlUtils.TAG_START] = -1;
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Gets the contents of the last tag in path. Same as calling 
+     * {@link #get(String)} for every tag in the path.
+     * 
+     * @see #compile(String)
+     * @param path Compiled path
+     * @return Contents of the last tag in path
+     */
+    public XmlSlicer get(final SlicePath path) {
+        return getLast(path, true);
+    }
+    
+    /**
+     * Gets the full last tag in path. Same as calling {@link #get(String)} 
+     * for every tag in the path but the last, and {@link #getTag(String)} 
+     * for the last one.
+     * 
+     * @see #compile(String)
+     * @param path Compiled path
+     * @return Contents of the tag, including &lt;tag&gt; and &lt;/tag&gt;
+     */
+    public XmlSlicer getTag(final SlicePath path) {
+        return getLast(path, false);
+    }
+    
+    /**
+     * Gets all tags that match the last tag in path. Same as calling 
+     * {@link #get(String)} for every tag in the path but the last, and 
+     * {@link #getTags(String)} for the last one.
+     * 
+     * @see #compile(String)
+     * @param path Compiled path
+     * @return XmlSlicerList - a List of XmlSlicer objects
+     */
+    public XmlSlicerList getTags(final SlicePath path) {
+        return collect(pathIterator(path, false));
+    }
+    
+    /**
+     * Gets values of all tags that match the last tag in path. Same as 
+     * calling {@link #get(String)} for every tag in the path but the last, 
+     * and {@link #getAllValuesIn(String)} for the last one.
+     * 
+     * @see #compile(String)
+     * @param path Compiled path
+     * @return XmlSlicerList - a List of XmlSlicer objects
+     */
+    public XmlSlicerList getAllValuesIn(final SlicePath path) {
+        return collect(pathIterator(path, true));
+    }
+    
+    /**
+     * Used internally for getting the last tag in path
+     * 
+     * @param path Compiled path
+     * @param valueOnly Slice only the value, without tag itself
+     * @return Last tag or it's value
+     */
+    private XmlSlicer getLast(final SlicePath path, final boolean valueOnly) {
+        final int[] bounds = new int[4];
+        final int last = path.size() - 1;
+        if (!descend(path, bounds) || !find(path.getTag(last), 
+                path.getTagStart(last), bounds[XmlUtils.VALUE_START], 
+                bounds[XmlUtils.VALUE_END], bounds)) {
+            return new XmlSlicer(null);
+        }
+        return slice(bounds, valueOnly);
+    }
+    
+    /**
+     * Used internally for iterating over the last tag in path
+     * 
+     * @param path Compiled path
+     * @param valuesOnly Iterate tag values instead of tags
+     * @return Iterator of tags
+     */
+    private Iterator<XmlSlicer> pathIterator(final SlicePath path, 
+            final boolean valuesOnly) {
+        final int[] bounds = new int[4];
+        final int last = path.size() - 1;
+        if (!descend(path, bounds)) {
+            bounds[XmlUtils.VALUE_START] = -1;
+        }
+        return new TagIterator(path.getTag(last), path.getTagStart(last), 
+                bounds[XmlUtils.VALUE_START], bounds[XmlUtils.VALUE_END], 
+                valuesOnly, null);
+    }
+    
+    /**
+     * Follows all steps of the path but the last one, just like chained 
+     * {@link #get(String)} calls do.
+     * 
+     * @param path Compiled path
+     * @param bounds Bounds where value start and end are set to the region 
+     *        where the last tag of path should be looked for
+     * @return false if some tag of the path is missing or has no value
+     */
+    private boolean descend(final SlicePath path, final int[] bounds) {
+        int from = start;
+        int to = end;
+        for (int i = 0; i < path.size() - 1; i++) {
+            if (!find(path.getTag(i), path.getTagStart(i), from, to, bounds) 
+                    || bounds[XmlUtils.VALUE_START] == -1) {
+                return false;
+            }
+            from = bounds[XmlUtils.VALUE_START];
+            to = bounds[XmlUtils.VALUE_END];
+        }
+        bounds[XmlUtils.VALUE_START] = from;
+        bounds[XmlUtils.VALUE_END] = to;
+        return true;
+    }
+    
+    /**
+     * Makes a view of a tag found by 
+     * {@link XmlUtils#findTag(CharSequence, String, int, int, int[])}
+     * 
+     * @param bounds Tag bounds
+     * @param valueOnly Slice only the value, without tag itself
+     * @return new XmlSlicer that shares the source XML
+     */
+    private XmlSlicer slice(final int[] bounds, final boolean valueOnly) {
+        if (!valueOnly) {
+            return new XmlSlicer(xml, bounds[XmlUtils.TAG_START], 
+                    bounds[XmlUtils.TAG_END], index);
+        }
+        if (bounds[XmlUtils.VALUE_START] == -1) {
+            return new XmlSlicer(null);
+        }
+        return new XmlSlicer(xml, bounds[XmlUtils.VALUE_START], 
+                bounds[XmlUtils.VALUE_END], index);
+    }
+    
+    /**
+     * Finds the next tag of the cursor in this slice and moves the cursor
+     * after it. Cursor position counts from the start of the slice.
+     * 
+     * @see XmlCursor#next(XmlSlicer)
+     * @param cursor Cursor to move
+     * @return Next tag or null if there are no more tags
+     */
+    XmlSlicer next(final XmlCursor cursor) {
+        if (xml == null || cursor.getPosition() >= end - start) {
+            return null;
+        }
+        final String tag = cursor.getTag();
+        final int[] bounds = new int[4];
+        if (!find(tag, "<".concat(tag), start + (int) cursor.getPosition(), 
+                end, bounds)) {
+            cursor.moveTo(end - start);
+            return null;
+        }
+        cursor.moveTo(bounds[XmlUtils.TAG_END] - start);
+        return slice(bounds, false);
+    }
+    
+    /**
+     * Asks the filter about the start tag of a found tag
+     * 
+     * @param filter Tag filter, null accepts all tags
+     * @param bounds Bounds of the tag
+     * @return true if filter accepts the tag
+     */
+    private boolean accept(final TagFilter filter, final int[] bounds) {
+        if (filter == null) {
+            return true;
+        }
+        final int headerEnd = bounds[XmlUtils.VALUE_START] == -1 
+                ? bounds[XmlUtils.TAG_END] : bounds[XmlUtils.VALUE_START];
+        return filter.accept(xml, bounds[XmlUtils.TAG_START], headerEnd);
+    }
+    
+    /**
+     * Finds a tag within a region of source XML, using the index if there 
+     * is one.
+     * 
+     * @see XmlUtils#findTag(CharSequence, String, String, int, int, int[])
+     * @param tag Target tag
+     * @param tagStart "&lt;" followed by target tag
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param bounds Array of at least 4 elements to be filled with offsets
+     * @return true if the tag was found
+     */
+    private boolean find(final String tag, final String tagStart, 
+            final int from, final int to, final int[] bounds) {
+        if (index != null) {
+            return index.findTag(tag, from, to, bounds);
+        }
+        return XmlUtils.findTag(xml, tag, tagStart, from, to, bounds);
+    }
+    
+    /**
+     * Builds a structural index of current slice in a single pass. All 
+     * queries on returned XmlSlicer and on everything that is sliced from 
+     * it are answered from the index instead of scanning the XML again. 
+     * Worth it when many queries are made on the same XML.
+     * 
+     * @see XmlIndex
+     * @return new XmlSlicer with the same XML, backed by the index
+     */
+    public XmlSlicer index() {
+        if (index != null || xml == null) {
+            return this;
+        }
+        return new XmlSlicer(xml, start, end, new XmlIndex(xml, start, end));
+    }
+    
+    /**
+     * Gets the structural index of source XML.
+     * 
+     * @see #index()
+     * @return Index or null if XML is not indexed
+     */
+    public XmlIndex getIndex() {
+        return index;
+    }
+    
+    /**
+     * Gets the attribute value from an XML tag. Example:
+     * 
+     * <pre>
+     * //value of attr will be 'val'
+     * String attr = XmlSlicer.cut("&lt;xml attr="val"/&gt;")\
+     *     .getTagAttribute("xml", "attr");
+     * </pre>
+     * 
+     * @param tag tag name
+     * @param attribute attribute name
+     * @return tag attribute's value 
+     */
+    public String getTagAttribute(final String tag, final String attribute) {
+        if (index != null) {
+            return index.getAttribute(tag, attribute, start, end);
+        }
+        return XmlUtils.getAttribute(xml, start, end, tag, attribute);
+    }
+    
+    /**
+     * Gets the attribute value from the first XML tag. Example:
+     * 
+     * <pre>
+     * //value of attr will be 'val'
+     * String attr = XmlSlicer.cut("&lt;xml attr="val"/&gt;")
+     *     .getTag("xml").attribute("attr");
+     * </pre>
+     * 
+     * @param attribute Attribute name
+     * @return First tag attribute's value 
+     */
+    public String attribute(final String attribute) {
+        return XmlUtils.getFirstTagAttribute(xml, start, end, attribute);
+    }
+    
+    /**
+     * Gets all attributes of the first XML tag in a single pass. Example:
+     * 
+     * <pre>
+     * //attrs will be {id=1, sku=A7}
+     * Map&lt;String, String&gt; attrs = XmlSlicer.cut(
+     *     "&lt;item id="1" sku = 'A7'/&gt;").attributes();
+     * </pre>
+     * 
+     * @return Attribute values by name, in the order they appear in XML
+     */
+    public Map<String, String> attributes() {
+        if (xml == null) {
+            return new LinkedHashMap<String, String>();
+        }
+        return XmlUtils.getFirstTagAttributes(xml, start, end);
+    }
+    
+    /**
+     * Gets several attribute values from the first XML tag in a single 
+     * pass, which is cheaper than calling {@link #attribute(String)} for 
+     * each of them. Example:
+     * 
+     * <pre>
+     * String[] values = item.attributes("id", "sku", "qty", "price");
+     * </pre>
+     * 
+     * @param attributes Attribute names
+     * @return Attribute values in the order of names, null for missing ones
+     */
+    public String[] attributes(final String... attributes) {
+        if (xml == null) {
+            return new String[attributes.length];
+        }
+        return XmlUtils.getFirstTagAttributeValues(xml, start, end, 
+                attributes);
+    }
+    
+    /**
+     * Gets the attribute of the first XML tag as int, parsing it right 
+     * from source XML.
+     * 
+     * @see #attribute(String)
+     * @param attribute Attribute name
+     * @return First tag attribute's value 
+     * @throws NumberFormatException if attribute is missing or is not a
+     *         number
+     */
+    public int intAttribute(final String attribute) {
+        final int[] offsets = findAttribute(attribute);
+        return XmlUtils.parseInt(xml, 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_START], 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Gets the attribute of the first XML tag as long, parsing it right 
+     * from source XML.
+     * 
+     * @see #attribute(String)
+     * @param attribute Attribute name
+     * @return First tag attribute's value 
+     * @throws NumberFormatException if attribute is missing or is not a
+     *         number
+     */
+    public long longAttribute(final String attribute) {
+        final int[] offsets = findAttribute(attribute);
+        return XmlUtils.parseLong(xml, 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_START], 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Gets the attribute of the first XML tag as double, parsing it right 
+     * from source XML.
+     * 
+     * @see #attribute(String)
+     * @param attribute Attribute name
+     * @return First tag attribute's value 
+     * @throws NumberFormatException if attribute is missing or is not a
+     *         number
+     */
+    public double doubleAttribute(final String attribute) {
+        final int[] offsets = findAttribute(attribute);
+        return XmlUtils.parseDouble(xml, 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_START], 
+                offsets[XmlUtils.ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Gets the attribute of the first XML tag as boolean, parsing it right 
+     * from source XML.
+     * 
+     * @see #attribute(String)
+     * @param attribute Attribute name
+     * @return true if attribute value is "true", ignoring case
+     */
+    public boolean booleanAttribute(final String attribute) {
+        final int[] offsets = new int[4];
+        return xml != null && XmlUtils.findFirstTagAttribute(xml, start, end, 
+                attribute, offsets) && XmlUtils.parseBoolean(xml, 
+                        offsets[XmlUtils.ATTRIBUTE_VALUE_START], 
+                        offsets[XmlUtils.ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Finds the attribute of the first tag for parsing it's value
+     * 
+     * @param attribute Attribute name
+     * @return Attribute offsets
+     * @throws NumberFormatException if attribute is missing
+     */
+    private int[] findAttribute(final String attribute) {
+        final int[] offsets = new int[4];
+        if (xml == null || !XmlUtils.findFirstTagAttribute(xml, start, end, 
+                attribute, offsets)) {
+            throw new NumberFormatException("null");
+        }
+        return offsets;
+    }
+    
+    /**
+     * Gets the value from the first XML tag. Example:
+     * 
+     * <pre>
+     * //value of val will be '123'
+     * String val = XmlSlicer.cut(&lt;xml&gt;123&lt;/xml&gt;).value();
+     * @return Value of the first tag of current XML
+     */
+    public String value() {
+        return XmlUtils.getFirstTagValue(xml, start, end);
+    }
+    
+    /**
+     * Parses this slice as int, without making a String. Example:
+     * 
+     * <pre>
+     * int qty = XmlSlicer.cut(xml).get("qty").asInt();
+     * </pre>
+     * 
+     * @return Slice parsed as int
+     * @throws NumberFormatException if slice is not an int
+     */
+    public int asInt() {
+        if (xml == null) {
+            throw new NumberFormatException("null");
+        }
+        return XmlUtils.parseInt(xml, start, end);
+    }
+    
+    /**
+     * Parses this slice as long, without making a String
+     * 
+     * @see #asInt()
+     * @return Slice parsed as long
+     * @throws NumberFormatException if slice is not a long
+     */
+    public long asLong() {
+        if (xml == null) {
+            throw new NumberFormatException("null");
+        }
+        return XmlUtils.parseLong(xml, start, end);
+    }
+    
+    /**
+     * Parses this slice as double, without making a String for plain 
+     * decimal numbers.
+     * 
+     * @see #asInt()
+     * @return Slice parsed as double
+     * @throws NumberFormatException if slice is not a double
+     */
+    public double asDouble() {
+        if (xml == null) {
+            throw new NumberFormatException("null");
+        }
+        return XmlUtils.parseDouble(xml, start, end);
+    }
+    
+    /**
+     * Parses this slice as boolean, without making a String
+     * 
+     * @see #asInt()
+     * @return true if slice is "true", ignoring case
+     */
+    public boolean asBoolean() {
+        return xml != null && XmlUtils.parseBoolean(xml, start, end);
+    }
+    
+    /**
+     * Gets the length of this slice in decoded characters, same as the 
+     * length of {@link #toString()}
+     */
+    public int length() {
+        if (xml instanceof XmlBytes) {
+            return text().length();
+        }
+        return end - start;
+    }
+    
+    /**
+     * Gets a decoded character of this slice
+     */
+    public char charAt(final int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        if (xml instanceof XmlBytes) {
+            return text().charAt(index);
+        }
+        return xml.charAt(start + index);
+    }
+    
+    /**
+     * Gets a part of current slice. Nothing is copied, returned XmlSlicer 
+     * shares the source XML. A slice of bytes is decoded first, and the 
+     * part is cut from the decoded characters.
+     */
+    public XmlSlicer subSequence(final int from, final int to) {
+        if (from < 0 || from > to || to > length()) {
+            throw new IndexOutOfBoundsException("Range: " + from + ", " + to);
+        }
+        if (xml instanceof XmlBytes) {
+            return new XmlSlicer(text(), from, to, null);
+        }
+        return new XmlSlicer(xml, start + from, start + to, index);
+    }
+    
+    /**
+     * Checks if this slice starts with "&lt;tag" followed by whitespace, 
+     * the kind of tag {@link #getTagAttribute(String, String)} reads 
+     * attributes from
+     * 
+     * @param tag Tag name
+     * @return true if the tag can have attributes
+     */
+    boolean isTagWithAttributes(final String tag) {
+        if (xml == null) {
+            return false;
+        }
+        final String name = XmlUtils.encode(xml, tag);
+        final int nameEnd = start + 1 + name.length();
+        return nameEnd < end && xml.charAt(start) == '<'
+                && XmlUtils.regionEquals(xml, start + 1, nameEnd, name) 
+                && xml.charAt(nameEnd) <= ' ';
+    }
+    
+    /**
+     * Decodes a slice of {@link XmlBytes} once, for CharSequence methods
+     */
+    private String text() {
+        if (text == null) {
+            text = toString();
+        }
+        return text;
+    }
+    
+    /**
+     * Copies current slice into a String.
+     * 
+     * @return XML of current slice or null if nothing was sliced
+     */
+    @Override
+    public String toString() {
+        if (xml == null) {
+            return null;
+        }
+        return XmlUtils.substring(xml, start, end);
+    }
+    
+    /**
+     * Iterator that finds next tag only when it's asked for it
+     */
+    private class TagIterator implements Iterator<XmlSlicer> {
+        
+        /**
+         * Target tag name
+         */
+        private final String tag;
+        
+        /**
+         * "&lt;" followed by target tag name
+         */
+        private final String tagStart;
+        
+        /**
+         * End of the region where tags are looked for
+         */
+        private final int to;
+        
+        /**
+         * Iterate tag values instead of tags
+         */
+        private final boolean valuesOnly;
+        
+        /**
+         * Skips tags that it does not accept, null if all tags are wanted
+         */
+        private final TagFilter filter;
+        
+        /**
+         * Bounds of the next tag
+         */
+        private final int[] bounds = new int[4];
+        
+        /**
+         * Offset where the next tag is looked for, -1 when nothing is left
+         */
+        private int offset;
+        
+        /**
+         * Is the next tag found and not yet returned?
+         */
+        private boolean found;
+        
+        TagIterator(final String tag, final String tagStart, final int from,
+                final int to, final boolean valuesOnly, 
+                final TagFilter filter) {
+            this.tag = tag;
+            this.tagStart = tagStart;
+            this.offset = from;
+            this.to = to;
+            this.valuesOnly = valuesOnly;
+            this.filter = filter;
+        }
+        
+        public boolean hasNext() {
+            while (!found && offset != -1) {
+                found = find(tag, tagStart, offset, to, bounds);
+                offset = found ? bounds[XmlUtils.TAG_END] : -1;
+                if (found) {
+                    found = accept(filter, bounds);
+                }
+            }
+            return found;
+        }
+        
+        public XmlSlicer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            return slice(bounds, valuesOnly);
+        }
+        
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    /**
+     * Spliterator for tags with the same name. Tags that start in 
+     * [offset, to) belong to it, but they can end anywhere in the slice. 
+     * <p>
+     * Splitting at an arbitrary offset would break the results when it 
+     * falls into a tag with the same name or into a comment, so the split 
+     * point is resynchronized with the sequential scan: it's the start of 
+     * the first tag after the middle that the sequential scan reaches. The 
+     * tags before it are stepped over without slicing them, and both halves
+     * keep looking for their tags lazily.</p>
+     */
+    private class TagSpliterator implements Spliterator<XmlSlicer> {
+        
+        /**
+         * Target tag name
+         */
+        private final String tag;
+        
+        /**
+         * "&lt;" followed by target tag name
+         */
+        private final String tagStart;
+        
+        /**
+         * Tags that start here or later belong to another spliterator
+         */
+        private final int to;
+        
+        /**
+         * Stream tag values instead of tags
+         */
+        private final boolean valuesOnly;
+        
+        /**
+         * Bounds of the current tag
+         */
+        private final int[] bounds = new int[4];
+        
+        /**
+         * Offset where the next tag is looked for, always a place where 
+         * the sequential scan would look for it too
+         */
+        private int offset;
+        
+        TagSpliterator(final String tag, final String tagStart, 
+                final int from, final int to, final boolean valuesOnly) {
+            this.tag = tag;
+            this.tagStart = tagStart;
+            this.offset = from;
+            this.to = to;
+            this.valuesOnly = valuesOnly;
+        }
+        
+        public boolean tryAdvance(final Consumer<? super XmlSlicer> action) {
+            if (offset >= to) {
+                return false;
+            }
+            if (!find(tag, tagStart, offset, end, bounds) 
+                    || bounds[XmlUtils.TAG_START] >= to) {
+                offset = to;
+                return false;
+            }
+            offset = bounds[XmlUtils.TAG_END];
+            action.accept(slice(bounds, valuesOnly));
+            return true;
+        }
+        
+        public Spliterator<XmlSlicer> trySplit() {
+            if (xml == null || to - offset < STREAM_SPLIT) {
+                return null;
+            }
+            final int split = resync(offset + (to - offset) / 2);
+            if (split == -1) {
+                return null;
+            }
+            final TagSpliterator prefix = new TagSpliterator(tag, tagStart,
+                    offset, split, valuesOnly);
+            offset = split;
+            return prefix;
+        }
+        
+        /**
+         * Steps over the tags from offset, exactly as 
+         * {@link #tryAdvance(Consumer)} would, but without slicing them
+         * 
+         * @param middle Offset to split at
+         * @return Start of the first tag at or after the middle, or -1 if 
+         *         no tag of this spliterator starts there
+         */
+        private int resync(final int middle) {
+            int from = offset;
+            while (find(tag, tagStart, from, end, bounds) 
+                    && bounds[XmlUtils.TAG_START] < to) {
+                if (bounds[XmlUtils.TAG_START] >= middle) {
+                    return bounds[XmlUtils.TAG_START];
+                }
+                from = bounds[XmlUtils.TAG_END];
+            }
+            return -1;
+        }
+        
+        /**
+         * Estimates with the count of chars that are left to scan
+         */
+        public long estimateSize() {
+            return Math.max(0, to - offset);
+        }
+        
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
     }
     
 }
@@ -59,4 +59,83 @@ public class XmlSlicerList extends ArrayList<XmlSlicer> {
         }
         return result;
     }
+    
+    /**
+     * Parses all underlying XmlSlicer objects as ints. Thread safe.
+     * 
+     * @see XmlSlicer#asInt()
+     * @return Array of parsed values
+     * @throws NumberFormatException if a value is not an int
+     */
+    public int[] asIntArray() {
+        final XmlSlicerList temp = copy();
+        final int[] result = new int[temp.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = temp.get(i).asInt();
+        }
+        return result;
+    }
+    
+    /**
+     * Parses all underlying XmlSlicer objects as longs. Thread safe.
+     * 
+     * @see XmlSlicer#asLong()
+     * @return Array of parsed values
+     * @throws NumberFormatException if a value is not a long
+     */
+    public long[] asLongArray() {
+        final XmlSlicerList temp = copy();
+        final long[] result = new long[temp.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = temp.get(i).asLong();
+        }
+        return result;
+    }
+    
+    /**
+     * Parses all underlying XmlSlicer objects as doubles. Thread safe.
+     * <p>Example use:</p>
+     * <pre>
+     * double[] prices = XmlSlicer.cut(feed).getAllValuesIn("price")
+     *     .asDoubleArray();
+     * </pre>
+     * 
+     * @see XmlSlicer#asDouble()
+     * @return Array of parsed values
+     * @throws NumberFormatException if a value is not a double
+     */
+    public double[] asDoubleArray() {
+        final XmlSlicerList temp = copy();
+        final double[] result = new double[temp.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = temp.get(i).asDouble();
+        }
+        return result;
+    }
+    
+    /**
+     * Parses all underlying XmlSlicer objects as booleans. Thread safe.
+     * 
+     * @see XmlSlicer#asBoolean()
+     * @return Array of parsed values
+     */
+    public boolean[] asBooleanArray() {
+        final XmlSlicerList temp = copy();
+        final boolean[] result = new boolean[temp.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = temp.get(i).asBoolean();
+        }
+        return result;
+    }
+    
+    /**
+     * Makes a copy of this list that is safe to iterate
+     * 
+     * @return Shallow copy
+     */
+    private XmlSlicerList copy() {
+        synchronized (this) {
+            return (XmlSlicerList) this.clone();
+        }
+    }
 }
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlBytes;
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Iterates over tags that are read from a stream, one tag at a time.
+ * <p>
+ * Stream is read into a buffer that only holds the tag that is currently
+ * being read, so memory use depends on the size of the largest tag, not the
+ * size of the stream. Each tag is returned as soon as it's closing tag is
+ * read. Tags are matched just like {@link XmlSlicer#getTags(String)} does.
+ * </p>
+ * <p>Example use:</p>
+ * <pre>
+ * XmlStream records = XmlSlicer.stream(in, "record", "UTF-8");
+ * try {
+ *     for (XmlSlicer record : records) {
+ *         System.out.println("Id: " + record.attribute("id"));
+ *     }
+ * } finally {
+ *     records.close();
+ * }
+ * </pre>
+ * <p>
+ * XmlStream can be iterated only once and is not thread safe.</p>
+ *
+ * @see XmlSlicer#stream(ReadableByteChannel, String, String)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlStream implements Iterator<XmlSlicer>, Iterable<XmlSlicer>,
+        Closeable {
+
+    /**
+     * Initial buffer size - 64 KB. Buffer grows if a tag does not fit.
+     */
+    private static final int BUFFER = 65536;
+
+    /**
+     * Source of XML
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Target tag name
+     */
+    private final String tag;
+
+    /**
+     * Charset of the stream
+     */
+    private final Charset charset;
+
+    /**
+     * Cursor that follows the returned tags, can be null
+     */
+    private final XmlCursor cursor;
+
+    /**
+     * Tag bounds filled by XmlUtils
+     */
+    private final int[] bounds = new int[4];
+
+    /**
+     * Buffer with unprocessed bytes between 0 and position
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Offset of the first byte in buffer, counting from the stream start
+     */
+    private long position;
+
+    /**
+     * Has the stream been read till the end?
+     */
+    private boolean eof;
+
+    /**
+     * Tag that will be returned by {@link #next()}
+     */
+    private XmlSlicer next;
+
+    /**
+     * Count of bytes that have to be skipped before reading
+     */
+    private long skip;
+
+    /**
+     * Builds the XmlStream. Use
+     * {@link XmlSlicer#stream(ReadableByteChannel, String, String)} for
+     * instantiating XmlStream.
+     *
+     * @param channel Source of XML
+     * @param tag Target tag name
+     * @param charset Charset of the stream, must be ASCII compatible
+     */
+    XmlStream(final ReadableByteChannel channel, final String tag,
+            final Charset charset) {
+        this(channel, tag, charset, BUFFER);
+    }
+
+    /**
+     * Builds the XmlStream with custom initial buffer size.
+     *
+     * @param channel Source of XML
+     * @param tag Target tag name
+     * @param charset Charset of the stream, must be ASCII compatible
+     * @param bufferSize Initial buffer size
+     */
+    XmlStream(final ReadableByteChannel channel, final String tag,
+            final Charset charset, final int bufferSize) {
+        this(channel, tag, charset, bufferSize, null);
+    }
+
+    /**
+     * Builds the XmlStream that starts reading at the cursor position and 
+     * moves the cursor. Use 
+     * {@link XmlCursor#stream(ReadableByteChannel, String)} for 
+     * instantiating it.
+     *
+     * @param channel Source of XML
+     * @param charset Charset of the stream, must be ASCII compatible
+     * @param cursor Cursor to follow
+     */
+    XmlStream(final ReadableByteChannel channel, final Charset charset, 
+            final XmlCursor cursor) {
+        this(channel, cursor.getTag(), charset, BUFFER, cursor);
+        this.skip = cursor.getPosition();
+        this.position = skip;
+    }
+
+    /**
+     * Builds the XmlStream
+     *
+     * @param channel Source of XML
+     * @param tag Target tag name
+     * @param charset Charset of the stream, must be ASCII compatible
+     * @param bufferSize Initial buffer size
+     * @param cursor Cursor to follow or null
+     */
+    private XmlStream(final ReadableByteChannel channel, final String tag,
+            final Charset charset, final int bufferSize, 
+            final XmlCursor cursor) {
+        if (!XmlBytes.isSupported(charset)) {
+            throw new XmlZenException("Charset is not ASCII compatible: "
+                    + charset);
+        }
+        this.channel = channel;
+        this.tag = tag;
+        this.charset = charset;
+        this.cursor = cursor;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Gets the offset of unprocessed XML, counting from the start of the
+     * stream. After a tag is returned by {@link #next()}, position is right
+     * after it's end.
+     *
+     * @return Offset in bytes
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    public boolean hasNext() {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    public XmlSlicer next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final XmlSlicer result = next;
+        next = null;
+        if (cursor != null) {
+            cursor.moveTo(position);
+        }
+        return result;
+    }
+
+    /**
+     * Not supported
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns this XmlStream, so it can be used in for loops.
+     * Stream can be iterated only once.
+     */
+    public Iterator<XmlSlicer> iterator() {
+        return this;
+    }
+
+    /**
+     * Closes the underlying channel
+     */
+    public void close() {
+        FileUtils.close(channel);
+    }
+
+    /**
+     * Reads the stream until next tag is complete.
+     *
+     * @return Next tag or null if there are no more tags
+     */
+    private XmlSlicer read() {
+        while (true) {
+            final XmlBytes data = view();
+            if (XmlUtils.findTag(data, tag, 0, data.length(), bounds)) {
+                final XmlSlicer result = copy(bounds[XmlUtils.TAG_START],
+                        bounds[XmlUtils.TAG_END]);
+                discard(bounds[XmlUtils.TAG_END]);
+                return result;
+            }
+            if (eof) {
+                return null;
+            }
+            //keep the beginning of incomplete tag, or the tail that can
+            //turn into a beginning of the tag
+            final int start = XmlUtils.findTagStart(data, tag, 0,
+                    data.length());
+            if (start == -1) {
+                discard(Math.max(0, data.length()
+                        - data.encode(tag).length()));
+            } else {
+                discard(start);
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Makes a view of unprocessed bytes
+     *
+     * @return XmlBytes that share the buffer
+     */
+    private XmlBytes view() {
+        final ByteBuffer data = buffer.duplicate();
+        data.flip();
+        return new XmlBytes(data, charset);
+    }
+
+    /**
+     * Copies a tag out of the buffer, because buffer gets reused
+     *
+     * @param start Tag start in buffer
+     * @param end Tag end in buffer
+     * @return XmlSlicer that owns the tag bytes
+     */
+    private XmlSlicer copy(final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        final ByteBuffer data = buffer.duplicate();
+        data.position(start);
+        data.get(bytes);
+        return XmlSlicer.cut(new XmlBytes(ByteBuffer.wrap(bytes), charset));
+    }
+
+    /**
+     * Drops processed bytes from the buffer
+     *
+     * @param count Count of bytes to drop
+     */
+    private void discard(final int count) {
+        if (count == 0) {
+            return;
+        }
+        buffer.flip();
+        buffer.position(count);
+        buffer.compact();
+        position += count;
+    }
+
+    /**
+     * Reads whatever the stream has, until at least one byte is read or 
+     * stream ends, so a tag that has arrived is returned without waiting 
+     * for more data. Grows the buffer if it's already full.
+     */
+    private void fill() {
+        if (skip > 0) {
+            skip();
+        }
+        if (!buffer.hasRemaining()) {
+            final ByteBuffer larger = ByteBuffer.allocate(
+                    buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        try {
+            int read = 0;
+            while (read == 0) {
+                read = channel.read(buffer);
+            }
+            if (read == -1) {
+                eof = true;
+            }
+        } catch (final IOException e) {
+            throw new XmlZenException("Failed reading XML stream", e);
+        }
+    }
+
+    /**
+     * Skips the bytes before cursor position. Seekable channels are 
+     * positioned, others are read into the empty buffer and dropped.
+     */
+    private void skip() {
+        try {
+            if (channel instanceof SeekableByteChannel) {
+                final SeekableByteChannel seekable = 
+                    (SeekableByteChannel) channel;
+                seekable.position(seekable.position() + skip);
+                skip = 0;
+                return;
+            }
+            while (skip > 0) {
+                buffer.clear();
+                if (skip < buffer.capacity()) {
+                    buffer.limit((int) skip);
+                }
+                final int read = channel.read(buffer);
+                if (read == -1) {
+                    eof = true;
+                    position -= skip;
+                    skip = 0;
+                }
+                skip -= Math.max(0, read);
+            }
+            buffer.clear();
+        } catch (final IOException e) {
+            throw new XmlZenException("Failed skipping XML stream", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Follows a file that XML records are appended to, like "tail -f" does. 
+ * Every {@link #poll()} reads only the bytes after the last complete 
+ * record, so polling costs as much as the new data, not the whole file. 
+ * A record that is still being written stays in the file until it's 
+ * closing tag is there.
+ * <pre>
+ * XmlTail events = XmlSlicer.follow(path, "event", "UTF-8");
+ * while (running) {
+ *     for (XmlSlicer event : events.poll()) {
+ *         System.out.println(event.get("message"));
+ *     }
+ *     Thread.sleep(1000);
+ * }
+ * </pre>
+ * <p>
+ * Position is kept in an {@link XmlCursor}, so it can be saved and 
+ * followed from the same place after a restart. If the file gets shorter
+ * than the position (i.e. it was rotated), it is followed from the start.
+ * </p>
+ * <p>
+ * XmlTail is not thread safe.</p>
+ *
+ * @see XmlSlicer#follow(Path, String, String)
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public final class XmlTail {
+
+    /**
+     * Followed file
+     */
+    private final Path path;
+
+    /**
+     * Charset of the file
+     */
+    private final Charset charset;
+
+    /**
+     * End of the last complete record
+     */
+    private final XmlCursor cursor;
+
+    /**
+     * Builds the XmlTail. Use {@link XmlSlicer#follow(Path, XmlCursor, 
+     * String)} for instantiating XmlTail.
+     *
+     * @param path Followed file
+     * @param charset Charset of the file, must be ASCII compatible
+     * @param cursor Target tag and position to follow from
+     */
+    XmlTail(final Path path, final Charset charset, final XmlCursor cursor) {
+        this.path = path;
+        this.charset = charset;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Reads records that were completed since the last poll
+     *
+     * @return New records, empty if there are none or file does not exist
+     */
+    public XmlSlicerList poll() {
+        final XmlSlicerList results = new XmlSlicerList();
+        if (!Files.isRegularFile(path)) {
+            return results;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            if (channel.size() < cursor.getPosition()) {
+                cursor.moveTo(0);
+            }
+        } catch (final IOException e) {
+            FileUtils.close(channel);
+            throw new XmlZenException("Failed opening file: " + path, e);
+        }
+        final XmlStream records = new XmlStream(channel, charset, cursor);
+        try {
+            for (final XmlSlicer record : records) {
+                results.add(record);
+            }
+        } finally {
+            records.close();
+        }
+        return results;
+    }
+
+    /**
+     * Gets the cursor that points right after the last complete record. 
+     * The cursor can be saved for following the file after a restart.
+     *
+     * @return Cursor of this XmlTail
+     */
+    public XmlCursor getCursor() {
+        return cursor;
+    }
+
+}
@@ -16,14 +16,22 @@
  */
 package com.googlecode.xmlzen.utils;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,40 +54,135 @@ public abstract class FileUtils {
 	private static final Log log = LogFactory.getLog(FileUtils.class);
 
 	/**
-	 * File buffer - 2048 bytes.
+	 * Charset that maps bytes to chars one to one
 	 */
-	private static final int BUFFER = 2048;
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+	
+	/**
+	 * Count of first bytes that are checked for XML header - 1 KB.
+	 */
+	private static final int HEAD = 1024;
 
 	/**
-	 * Reads a {@link File} and returns the contents as {@link String}
+	 * Reads a {@link File} and returns the contents as {@link String}.
+	 * <p>
+	 * The whole file is read into a buffer of file size and decoded once.</p>
 	 * 
 	 * @param file File to read
 	 * @param charset Charset of this File
 	 * @return File contents as String
 	 */
 	public static String readFile(final File file, final String charset) {
-		InputStream in = null;
+		FileChannel channel = null;
 		try {
 		    if (!file.isFile()) {
 		        return null;
 		    }
-			in = new FileInputStream(file);
-			final BufferedInputStream buffIn = new BufferedInputStream(in);
-			final byte[] buffer = new byte[(int) Math
-					.min(file.length(), BUFFER)];
-			int read;
-			final StringBuilder result = new StringBuilder();
-			while ((read = buffIn.read(buffer)) != -1) {
-				result.append(new String(buffer, 0, read, charset));
-			}
-			return result.toString();
+		    final Charset cs = Charset.forName(charset);
+		    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		    final ByteBuffer buffer = readFully(channel);
+		    return decode(buffer.array(), 0, buffer.position(), cs);
 		} catch (final Exception e) {
 			throw new XmlZenException("Failed reading file: " + file, e);
 		} finally {
-			close(in);
+			close(channel);
 		}
 	}
-
+	
+	/**
+	 * Reads an XML {@link File} and returns the contents as {@link String}, 
+	 * using the charset that the file declares. File is opened and read 
+	 * once: the charset is guessed from the first bytes that were read with
+	 * {@link XmlUtils#guessCharset(byte[], int)}, byte order mark is 
+	 * dropped, and the same bytes are decoded.
+	 * 
+	 * @param file XML File to read
+	 * @return File contents as String
+	 */
+	public static String readXmlFile(final File file) {
+	    FileChannel channel = null;
+	    try {
+	        if (!file.isFile()) {
+	            return null;
+	        }
+	        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	        final ByteBuffer buffer = readFully(channel);
+	        final byte[] bytes = buffer.array();
+	        final int length = buffer.position();
+	        final Charset cs = Charset.forName(XmlUtils.guessCharset(bytes, 
+	                Math.min(length, HEAD)));
+	        final int bom = XmlUtils.getBomLength(bytes, length);
+	        return decode(bytes, bom, length - bom, cs);
+	    } catch (final Exception e) {
+	        throw new XmlZenException("Failed reading file: " + file, e);
+	    } finally {
+	        close(channel);
+	    }
+	}
+	
+	/**
+	 * Decodes bytes in a single pass into a buffer that fits all chars. 
+	 * Malformed and unmappable bytes are replaced, same as 
+	 * {@link String#String(byte[], int, int, Charset)} does.
+	 * 
+	 * @param bytes Encoded bytes
+	 * @param offset Offset of the first byte
+	 * @param length Count of bytes
+	 * @param charset Charset of bytes
+	 * @return Decoded String
+	 * @throws CharacterCodingException if decoder fails
+	 */
+	private static String decode(final byte[] bytes, final int offset, 
+	        final int length, final Charset charset) 
+	        throws CharacterCodingException {
+	    if (LATIN1.equals(charset)) {
+	        return new String(bytes, offset, length, LATIN1);
+	    }
+	    final CharsetDecoder decoder = charset.newDecoder()
+	        .onMalformedInput(CodingErrorAction.REPLACE)
+	        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+	    final CharBuffer chars = CharBuffer.allocate((int) Math.min(
+	            Integer.MAX_VALUE - 8, 
+	            (long) Math.ceil(length * (double) decoder.maxCharsPerByte())));
+	    CoderResult result = decoder.decode(
+	            ByteBuffer.wrap(bytes, offset, length), chars, true);
+	    if (result.isUnderflow()) {
+	        result = decoder.flush(chars);
+	    }
+	    if (!result.isUnderflow()) {
+	        result.throwException();
+	    }
+	    return new String(chars.array(), 0, chars.position());
+	}
+	
+	/**
+	 * Reads a channel till the end into a buffer of channel size. Buffer 
+	 * grows if the channel turns out to be longer.
+	 * 
+	 * @param channel Channel to read
+	 * @return Heap buffer with contents between 0 and position
+	 * @throws IOException if reading fails
+	 */
+	private static ByteBuffer readFully(final FileChannel channel) 
+	        throws IOException {
+	    final long size = channel.size();
+	    if (size > Integer.MAX_VALUE - 8) {
+	        throw new XmlZenException("File is too large to read: " + size);
+	    }
+	    ByteBuffer buffer = ByteBuffer.allocate((int) size + 1);
+	    while (channel.read(buffer) != -1) {
+	        if (!buffer.hasRemaining()) {
+	            //file grew while reading
+	            final ByteBuffer larger = ByteBuffer.allocate(
+	                    buffer.capacity() * 2);
+	            buffer.flip();
+	            larger.put(buffer);
+	            buffer = larger;
+	        }
+	    }
+	    return buffer;
+	}
+	
 	/**
 	 * Reads a {@link File} and returns it's contents as String. Uses the 
 	 * default system charset.
@@ -92,6 +195,29 @@ public abstract class FileUtils {
 		return readFile(file, Charset.defaultCharset().name());
 	}
 	
+	/**
+	 * Maps a file into memory for reading. The file is not read into heap, 
+	 * operating system loads pages of it when they are accessed.
+	 * <p>
+	 * Files up to 2 GB are supported.</p>
+	 * 
+	 * @param path Path of the file to map
+	 * @return Read only buffer with file contents
+	 */
+	public static MappedByteBuffer mapFile(final Path path) {
+	    FileChannel channel = null;
+	    try {
+	        channel = FileChannel.open(path, StandardOpenOption.READ);
+	        //mapping stays valid after the channel is closed
+	        return channel.map(FileChannel.MapMode.READ_ONLY, 0, 
+	                channel.size());
+	    } catch (final Exception e) {
+	        throw new XmlZenException("Failed mapping file: " + path, e);
+	    } finally {
+	        close(channel);
+	    }
+	}
+	
 	/**
 	 * Closes a {@link Closeable}, for instance a {@link FileInputStream}.
 	 * <p>
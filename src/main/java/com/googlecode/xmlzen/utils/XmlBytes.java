@@ -0,0 +1,330 @@
+/*
+ * Copyright 2009 Tomas Varaneckas
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import com.googlecode.xmlzen.XmlZenException;
+
+/**
+ * A {@link CharSequence} view of encoded XML bytes.
+ *
+ * <p>Works only with ASCII compatible encodings (UTF-8, ISO-8859-x and
+ * other single byte charsets), where all markup characters are single bytes
+ * that never appear inside multi-byte characters. This makes it possible to
+ * find tags and attributes by looking at bytes only, and decode just the
+ * results.</p>
+ *
+ * <p>Every byte is one char of this CharSequence, so {@link #charAt(int)}
+ * returns raw bytes (as if it was ISO-8859-1), while {@link #toString()}
+ * decodes the bytes with the real charset. Tag and attribute names are
+ * converted with {@link #encode(String)} before looking for them.</p>
+ *
+ * <p>Chars are looked for 8 bytes at a time: a long word is read from the
+ * buffer and all it's bytes are compared with the target at once (SWAR).
+ * Scanning byte by byte can be switched back on with
+ * {@link #setDefaultWordScan(boolean)}, i.e. for comparing the two.</p>
+ *
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlBytes implements CharSequence {
+
+    /**
+     * Charset used for mapping encoded bytes to chars one to one
+     */
+    private static final Charset RAW = Charset.forName("ISO-8859-1");
+
+    /**
+     * Lowest bit of every byte in a long word
+     */
+    private static final long ONES = 0x0101010101010101L;
+
+    /**
+     * Highest bit of every byte in a long word
+     */
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * Are new XmlBytes scanned a word at a time by default?
+     *
+     * @see #setDefaultWordScan(boolean)
+     */
+    private static boolean defaultWordScan = true;
+
+    /**
+     * Source bytes, accessed with absolute offsets only
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Little endian view of source bytes for reading long words, so the
+     * first byte is the lowest one. Null if scanning byte by byte.
+     */
+    private final ByteBuffer words;
+
+    /**
+     * Offset of the first byte in source bytes
+     */
+    private final int offset;
+
+    /**
+     * Count of bytes in this sequence
+     */
+    private final int length;
+
+    /**
+     * Charset of source bytes
+     */
+    private final Charset charset;
+
+    /**
+     * Is the charset exactly US-ASCII or ISO-8859-1, so names never need
+     * encoding
+     */
+    private final boolean raw;
+
+    /**
+     * Is the charset UTF-8, the only supported one with multi-byte 
+     * characters
+     */
+    private final boolean utf8;
+
+    /**
+     * Builds a view of all bytes from position to limit of given buffer.
+     *
+     * @param bytes Source bytes, for example a MappedByteBuffer
+     * @param charset Charset of source bytes
+     * @throws XmlZenException if charset is not ASCII compatible
+     */
+    public XmlBytes(final ByteBuffer bytes, final Charset charset) {
+        this(bytes, defaultWordScan 
+                ? bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN) : null, 
+                bytes.position(), bytes.remaining(), charset);
+        if (!isSupported(charset)) {
+            throw new XmlZenException("Charset is not ASCII compatible: "
+                    + charset);
+        }
+    }
+
+    /**
+     * Builds a view of a region of source bytes
+     *
+     * @param bytes Source bytes
+     * @param words Little endian view of source bytes or null
+     * @param offset Offset of the first byte
+     * @param length Count of bytes
+     * @param charset Charset of source bytes
+     */
+    private XmlBytes(final ByteBuffer bytes, final ByteBuffer words, 
+            final int offset, final int length, final Charset charset) {
+        this.bytes = bytes;
+        this.words = words;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+        this.raw = RAW.equals(charset) || "US-ASCII".equals(charset.name());
+        this.utf8 = "UTF-8".equals(charset.name());
+    }
+
+    /**
+     * Chooses how new XmlBytes look for chars: 8 bytes at a time (default) 
+     * or byte by byte. Existing XmlBytes are not affected.
+     *
+     * @param wordScan Scan a long word at a time?
+     */
+    public static void setDefaultWordScan(final boolean wordScan) {
+        XmlBytes.defaultWordScan = wordScan;
+    }
+
+    /**
+     * Checks if bytes in given charset can be sliced without decoding:
+     * charset must be UTF-8 or a single byte charset that encodes ASCII
+     * characters as ASCII.
+     *
+     * @param charset Charset to check
+     * @return true if charset is ASCII compatible
+     */
+    public static boolean isSupported(final Charset charset) {
+        if (RAW.equals(charset) || "UTF-8".equals(charset.name())) {
+            return true;
+        }
+        if (!charset.canEncode()) {
+            return false;
+        }
+        if (charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        final String ascii = "<>/?!=\"' \t\r\n:-_.0123456789"
+                + "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        return ascii.equals(new String(ascii.getBytes(charset), RAW));
+    }
+
+    /**
+     * Gets the charset of source bytes
+     *
+     * @return Charset
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Converts a String (i.e. tag name) to the form it has in this
+     * CharSequence: one char for every encoded byte.
+     *
+     * @param text Text to convert
+     * @return Text that can be compared with chars of this sequence
+     */
+    public String encode(final String text) {
+        if (raw) {
+            return text;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return new String(text.getBytes(charset), RAW);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Decodes a region of this sequence with the source charset
+     *
+     * @param start Region start (inclusive)
+     * @param end Region end (exclusive)
+     * @return Decoded String
+     */
+    public String decode(final int start, final int end) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(),
+                    bytes.arrayOffset() + offset + start, end - start,
+                    charset);
+        }
+        final ByteBuffer region = bytes.duplicate();
+        region.limit(offset + end).position(offset + start);
+        return charset.decode(region).toString();
+    }
+
+    /**
+     * Counts characters that {@link #decode(int, int)} makes of a region,
+     * without decoding it. Only UTF-8 has multi-byte characters, the ones 
+     * outside of the Basic Multilingual Plane decode to two chars.
+     *
+     * @param start Region start (inclusive)
+     * @param end Region end (exclusive)
+     * @return Count of decoded chars
+     */
+    public int charCount(final int start, final int end) {
+        if (!utf8) {
+            return end - start;
+        }
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            final int b = bytes.get(offset + i) & 0xff;
+            //continuation bytes are 10xxxxxx, 4 byte sequences 11110xxx
+            if ((b & 0xc0) != 0x80) {
+                count += b >= 0xf0 ? 2 : 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds a char within the given region.
+     *
+     * @see XmlUtils#indexOf(CharSequence, char, int, int)
+     * @param c Char to look for
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Offset of the char or -1 if it's not found
+     */
+    public int indexOf(final char c, final int from, final int to) {
+        final byte b = (byte) c;
+        int i = from;
+        if (words != null) {
+            final long pattern = ONES * (c & 0xff);
+            for (; i + 8 <= to; i += 8) {
+                //bytes equal to the target become zero, and the highest 
+                //bit is set for the lowest zero byte (and maybe some above)
+                final long word = words.getLong(offset + i) ^ pattern;
+                final long found = (word - ONES) & ~word & HIGHS;
+                if (found != 0) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes.get(offset + i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds an already encoded String within the given region.
+     *
+     * @see XmlUtils#indexOf(CharSequence, String, int, int)
+     * @param needle String to look for
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Offset of the needle or -1 if it's not found
+     */
+    public int indexOf(final String needle, final int from, final int to) {
+        final char first = needle.charAt(0);
+        final int max = to - needle.length();
+        int start = indexOf(first, from, max + 1);
+        while (start != -1) {
+            int i = needle.length() - 1;
+            while (i > 0 && charAt(start + i) == needle.charAt(i)) {
+                i--;
+            }
+            if (i == 0) {
+                return start;
+            }
+            start = indexOf(first, start + 1, max + 1);
+        }
+        return -1;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(final int index) {
+        return (char) (bytes.get(offset + index) & 0xff);
+    }
+
+    public XmlBytes subSequence(final int start, final int end) {
+        return new XmlBytes(bytes, words, offset + start, end - start, 
+                charset);
+    }
+
+    /**
+     * Decodes all bytes of this sequence
+     *
+     * @return Decoded String
+     */
+    @Override
+    public String toString() {
+        return decode(0, length);
+    }
+
+}
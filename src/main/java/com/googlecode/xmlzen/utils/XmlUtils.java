@@ -19,8 +19,12 @@ package com.googlecode.xmlzen.utils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.googlecode.xmlzen.XmlCursor;
 import com.googlecode.xmlzen.XmlZenException;
 
 /**
@@ -33,6 +37,61 @@ import com.googlecode.xmlzen.XmlZenException;
  */
 public abstract class XmlUtils {
 
+    /**
+     * Index of tag start offset in bounds filled by 
+     * {@link #findTag(CharSequence, String, int, int, int[])}
+     */
+    public static final int TAG_START = 0;
+    
+    /**
+     * Index of tag value start offset in bounds filled by 
+     * {@link #findTag(CharSequence, String, int, int, int[])}
+     */
+    public static final int VALUE_START = 1;
+    
+    /**
+     * Index of tag value end offset in bounds filled by 
+     * {@link #findTag(CharSequence, String, int, int, int[])}
+     */
+    public static final int VALUE_END = 2;
+    
+    /**
+     * Index of tag end offset in bounds filled by 
+     * {@link #findTag(CharSequence, String, int, int, int[])}
+     */
+    public static final int TAG_END = 3;
+    
+    /**
+     * Index of attribute name start offset in offsets filled by 
+     * {@link #scanAttributes(CharSequence, int, int, int[])}
+     */
+    public static final int ATTRIBUTE_NAME_START = 0;
+    
+    /**
+     * Index of attribute name end offset in offsets filled by 
+     * {@link #scanAttributes(CharSequence, int, int, int[])}
+     */
+    public static final int ATTRIBUTE_NAME_END = 1;
+    
+    /**
+     * Index of attribute value start offset (after the quote) in offsets 
+     * filled by {@link #scanAttributes(CharSequence, int, int, int[])}
+     */
+    public static final int ATTRIBUTE_VALUE_START = 2;
+    
+    /**
+     * Index of attribute value end offset (at the closing quote) in offsets 
+     * filled by {@link #scanAttributes(CharSequence, int, int, int[])}
+     */
+    public static final int ATTRIBUTE_VALUE_END = 3;
+    
+    /**
+     * Powers of ten that are exact doubles
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4,
+        1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
 	/**
 	 * Tries to read the <?xml ... encoding="???"?> header. 
 	 * <p>
@@ -52,8 +111,7 @@ public abstract class XmlUtils {
 			//<?xml version="1.0" encoding="Windows-1257"?> ~50 bytes
 			//100 bytes should be more than enough to read such a header
 			final byte[] head = new byte[100]; 
-			in.read(head);
-			return guessCharset(new String(head));
+			return guessCharset(head, Math.max(0, in.read(head)));
 		} catch (final Exception e) {
 			throw new XmlZenException("Failed guessing charset for file: " 
 					+ file, e);
@@ -62,6 +120,83 @@ public abstract class XmlUtils {
 		}
 	}
 
+	/**
+	 * Guesses the charset of XML by looking at it's first bytes: a byte 
+	 * order mark (UTF-8, UTF-16 or UTF-32), the layout of "&lt;?xml" 
+	 * (UTF-16 or UTF-32 without a BOM) or the encoding of the 
+	 * &lt;?xml ... encoding="???"?&gt; header. Nothing is decoded.
+	 * <p>
+	 * In case none of these is found, Charset.defaultCharset().name() is 
+	 * returned. UTF-8 BOM is not skipped by the UTF-8 decoder, so it has to 
+	 * be skipped by the caller, see {@link #getBomLength(byte[], int)}.</p>
+	 * 
+	 * @param head First bytes of XML, 100 bytes should be enough
+	 * @param length Count of bytes in head
+	 * @return Possible charset name
+	 */
+	public static String guessCharset(final byte[] head, final int length) {
+	    if (length >= 4) {
+	        final int first = (head[0] & 0xff) << 24 | (head[1] & 0xff) << 16
+	                | (head[2] & 0xff) << 8 | head[3] & 0xff;
+	        switch (first) {
+	            case 0x0000FEFF: 
+	            case 0xFFFE0000: 
+	                return "UTF-32";
+	            case 0x0000003C:
+	                return "UTF-32BE";
+	            case 0x3C000000:
+	                return "UTF-32LE";
+	            case 0x003C003F:
+	                return "UTF-16BE";
+	            case 0x3C003F00:
+	                return "UTF-16LE";
+	            default:
+	                break;
+	        }
+	    }
+	    if (length >= 2 && ((head[0] & 0xff) == 0xFE && (head[1] & 0xff) == 0xFF
+	            || (head[0] & 0xff) == 0xFF && (head[1] & 0xff) == 0xFE)) {
+	        return "UTF-16";
+	    }
+	    final int bom = getBomLength(head, length);
+	    if (bom > 0) {
+	        return "UTF-8";
+	    }
+	    //ASCII compatible, so the header can be read as bytes
+	    final XmlBytes xml = new XmlBytes(ByteBuffer.wrap(head, 0, length), 
+	            Charset.forName("ISO-8859-1"));
+	    final String declaration = "<?xml";
+	    if (length < declaration.length() 
+	            || indexOf(xml, declaration, 0, length) != 0) {
+	        return Charset.defaultCharset().name();
+	    }
+	    final int end = indexOf(xml, "?>", 0, length);
+	    if (end == -1) {
+	        return Charset.defaultCharset().name();
+	    }
+	    final String encoding = getAttributeInRange(xml, "encoding", 
+	            declaration.length(), end);
+	    if (encoding == null || encoding.length() == 0) {
+	        return Charset.defaultCharset().name();
+	    }
+	    return encoding;
+	}
+	
+	/**
+	 * Gets the length of UTF-8 byte order mark
+	 * 
+	 * @param head First bytes of XML
+	 * @param length Count of bytes in head
+	 * @return 3 if XML starts with UTF-8 BOM, 0 otherwise
+	 */
+	public static int getBomLength(final byte[] head, final int length) {
+	    if (length >= 3 && (head[0] & 0xff) == 0xEF 
+	            && (head[1] & 0xff) == 0xBB && (head[2] & 0xff) == 0xBF) {
+	        return 3;
+	    }
+	    return 0;
+	}
+
 	/**
 	 * Tries to read the <?xml ... encoding="???"?> header. 
      * <p>
@@ -127,6 +262,8 @@ public abstract class XmlUtils {
      * with exact start and end offset of the XML tag which value is returned. 
      * </p>
      * 
+     * @see #findTag(CharSequence, String, int, int, int[])
+     * @see #getTagValue(CharSequence, XmlCursor, boolean)
      * @param xml XML String
      * @param tag Target tag
 	 * @param startOffset Two-way {@link Value} with start offset
@@ -138,65 +275,465 @@ public abstract class XmlUtils {
             final Value<Integer> startOffset, 
             final Value<Integer> endOffset, 
             final boolean valueOnly) {
-	    //A string that represents tag start, i.e.: "<someTag".
-	    //This string does not have any closing ">", because tag can have 
-	    //attributes or it can be autoclosed with "/>".
-        final String tagStart = "<".concat(tag);
-        //If tag has value it usually ends nicely with "</someTag>"
-        final String tagEnd = "</".concat(tag).concat(">");
-        int start = xml.indexOf(tagStart, getValue(startOffset, 0));
-        if (start == -1) {
-            setValue(endOffset, -1);
-            return null;
+	    final int[] bounds = new int[4];
+	    if (!findTag(xml, tag, getValue(startOffset, 0), xml.length(), 
+	            bounds)) {
+	        setValue(endOffset, -1);
+	        return null;
+	    }
+	    setValue(startOffset, bounds[TAG_START]);
+	    setValue(endOffset, bounds[TAG_END]);
+	    if (!valueOnly) {
+	        return xml.substring(bounds[TAG_START], bounds[TAG_END]);
+	    }
+	    if (bounds[VALUE_START] == -1) {
+	        return null;
+	    }
+	    return xml.substring(bounds[VALUE_START], bounds[VALUE_END]);
+	}
+	
+	/**
+	 * Gets the value of the next tag after cursor position and moves the 
+	 * cursor right after that tag, so the next call returns the next tag. 
+	 * Cursor stays where it was if there are no more tags.
+	 * 
+	 * @see #findTag(CharSequence, String, int, int, int[])
+	 * @param xml Source XML
+	 * @param cursor Cursor with target tag and position in source XML
+	 * @param valueOnly Return only the xml tag value, without tag itself
+	 * @return Value of tag's contents, whole tag with contents, or null if
+	 *         there are no more tags
+	 * @throws XmlZenException if cursor position does not fit in an int, 
+	 *         i.e. it comes from a file larger than 2 GB
+	 */
+	public static String getTagValue(final CharSequence xml, 
+	        final XmlCursor cursor, final boolean valueOnly) {
+	    if (cursor.getPosition() > Integer.MAX_VALUE) {
+	        throw new XmlZenException("Cursor position is too large for " 
+	                + "a CharSequence: " + cursor);
+	    }
+	    final int[] bounds = new int[4];
+	    if (cursor.getPosition() >= xml.length() || !findTag(xml, 
+	            cursor.getTag(), (int) cursor.getPosition(), xml.length(), 
+	            bounds)) {
+	        return null;
+	    }
+	    cursor.moveTo(bounds[TAG_END]);
+	    if (!valueOnly) {
+	        return substring(xml, bounds[TAG_START], bounds[TAG_END]);
+	    }
+	    if (bounds[VALUE_START] == -1) {
+	        return null;
+	    }
+	    return substring(xml, bounds[VALUE_START], bounds[VALUE_END]);
+	}
+	
+	/**
+	 * Finds the first XML tag within the given region of XML and fills 
+	 * <code>bounds</code> with it's offsets, without copying anything.
+	 * <p>
+	 * After a successful call <code>bounds</code> holds:</p>
+	 * <ul>
+	 * <li>{@link #TAG_START} - offset of "&lt;tag"</li>
+	 * <li>{@link #VALUE_START} - offset of trimmed tag value, or -1 if the 
+	 *     tag is closed immediately (&lt;tag/&gt;)</li>
+	 * <li>{@link #VALUE_END} - end offset (exclusive) of trimmed tag value, 
+	 *     or -1 if the tag is closed immediately</li>
+	 * <li>{@link #TAG_END} - end offset (exclusive) of "&lt;/tag&gt;" or 
+	 *     "/&gt;"</li>
+	 * </ul>
+	 * 
+	 * @param xml Source XML
+	 * @param tag Target tag
+	 * @param from Start offset of the region (inclusive)
+	 * @param to End offset of the region (exclusive)
+	 * @param bounds Array of at least 4 elements to be filled with offsets
+	 * @return true if the tag was found, false otherwise
+	 */
+	public static boolean findTag(final CharSequence xml, final String tag,
+	        final int from, final int to, final int[] bounds) {
+        //A string that represents tag start, i.e.: "<someTag".
+        //This string does not have any closing ">", because tag can have 
+        //attributes or it can be autoclosed with "/>".
+	    return findTag(xml, tag, "<".concat(tag), from, to, bounds);
+	}
+	
+	/**
+	 * Same as {@link #findTag(CharSequence, String, int, int, int[])}, but
+	 * with a prebuilt "&lt;tag" String, so nothing is built when looking for
+	 * the same tag many times.
+	 * 
+	 * @param xml Source XML
+	 * @param tag Target tag
+	 * @param tagStart "&lt;" followed by target tag
+	 * @param from Start offset of the region (inclusive)
+	 * @param to End offset of the region (exclusive)
+	 * @param bounds Array of at least 4 elements to be filled with offsets
+	 * @return true if the tag was found, false otherwise
+	 */
+	public static boolean findTag(final CharSequence xml, final String tag,
+	        final String tagStart, final int from, final int to, 
+	        final int[] bounds) {
+        final String name = encode(xml, tag);
+        //prebuilt tagStart is valid unless the name had to be encoded
+        final String needle = name == tag ? tagStart : "<".concat(name);
+        if (name.length() == 0) {
+            //"<>" is not a tag
+            return false;
         }
-        char next = xml.charAt(start + tagStart.length());
-        //tag is immediately closed
-        if (next == '/') {
-            //offset of />
-            setValue(startOffset, start);
-            setValue(endOffset, start + tagStart.length() + 2);
-            if (valueOnly) {
-                return null;
-            } else {
-                return xml.substring(start, start + tagStart.length() + 2);
-            }
+        final int start = findEncodedTagStart(xml, needle, from, to);
+        final int nameEnd = start + needle.length();
+        if (start == -1 || nameEnd >= to) {
+            return false;
         }
-        while (next != '>' && next != ' ') {
-            start = xml.indexOf(tagStart, start + tagStart.length());
-            next = xml.charAt(start + tagStart.length());
+        final int valueStart = indexOf(xml, '>', nameEnd, to) + 1;
+        if (valueStart == 0) {
+            return false;
         }
-        final int fullStart = start;
-        start = xml.indexOf('>', start) + 1;
         //check if tag has no value
-        if (xml.charAt(start - 2) == '/') {
-            setValue(startOffset, fullStart);
-            setValue(endOffset, start);
-            if (valueOnly) {
-                return null;
-            } else {
-                return xml.substring(fullStart, start);
-            }
+        if (xml.charAt(valueStart - 2) == '/') {
+            return setBounds(bounds, start, -1, -1, valueStart);
         }
-        int end = xml.indexOf(tagEnd, start);
-        if (end == -1) {
-            setValue(startOffset, -1);
-            setValue(endOffset, -1);
-            return null;
-        }
-        String result = xml.substring(start, end).trim();
-        int newStart = result.indexOf(tagStart); 
-        while (newStart != -1) {
-            end = xml.indexOf(tagEnd, end + tagEnd.length());
-            result = xml.substring(start, end).trim();
-            newStart = result.indexOf(tagStart, newStart+tagStart.length());
-        } 
-        setValue(startOffset, start - tagStart.length() - 1);
-        setValue(endOffset, end + tagEnd.length());
-        if (!valueOnly) {
-            result = xml.substring(fullStart, end + tagEnd.length());
+        //single forward scan through the markup, tracking the depth of 
+        //nested tags with the same name
+        int depth = 1;
+        int offset = valueStart;
+        while (true) {
+            final int markup = indexOf(xml, '<', offset, to);
+            if (markup == -1) {
+                return false;
+            }
+            offset = markup + 1;
+            final boolean closing = offset < to && xml.charAt(offset) == '/';
+            if (!isName(xml, closing ? offset + 1 : offset, to, name)) {
+                continue;
+            }
+            final int markupEnd = indexOf(xml, '>', offset, to);
+            if (markupEnd == -1) {
+                return false;
+            }
+            offset = markupEnd + 1;
+            if (closing) {
+                if (--depth == 0) {
+                    return setBounds(bounds, start, 
+                            trimStart(xml, valueStart, markup), 
+                            trimEnd(xml, valueStart, markup), offset);
+                }
+            } else if (xml.charAt(markupEnd - 1) != '/') {
+                depth++;
+            }
         }
-        return result;
-    }
+	}
+	
+	/**
+	 * Checks if a char terminates a tag name, i.e. "&gt;", "/" or whitespace.
+	 * All tag scanners of XmlZen follow this rule, so they agree on where 
+	 * a name ends.
+	 * 
+	 * @param c Char that follows the tag name
+	 * @return true if tag name ends here
+	 */
+	public static boolean isNameEnd(final char c) {
+	    return c == '>' || c == '/' || c <= ' ';
+	}
+	
+	/**
+	 * Finds the end of a tag name
+	 * 
+	 * @see #isNameEnd(char)
+	 * @param xml Source XML
+	 * @param offset Offset of the name (right after "&lt;" or "&lt;/")
+	 * @param to End offset of the region (exclusive)
+	 * @return Offset right after the name, or <code>to</code> if the name 
+	 *         is not complete
+	 */
+	public static int findNameEnd(final CharSequence xml, final int offset,
+	        final int to) {
+	    int nameEnd = offset;
+	    while (nameEnd < to && !isNameEnd(xml.charAt(nameEnd))) {
+	        nameEnd++;
+	    }
+	    return nameEnd;
+	}
+	
+	/**
+	 * Checks if a name that follows "&lt;" or "&lt;/" is a tag name. Empty 
+	 * names are not, and neither is markup that starts with "&lt;!" or 
+	 * "&lt;?" (comments, CDATA, declarations, processing instructions). 
+	 * Such markup is not skipped: XML after it's "&lt;" is scanned for tags
+	 * as usual, the same way 
+	 * {@link #findTag(CharSequence, String, int, int, int[])} finds tags 
+	 * inside comments. All tag scanners of XmlZen follow this rule.
+	 * 
+	 * @see #findNameEnd(CharSequence, int, int)
+	 * @param xml Source XML
+	 * @param nameStart Offset of the name
+	 * @param nameEnd Offset right after the name
+	 * @return true if it's a tag name
+	 */
+	public static boolean isTagName(final CharSequence xml, 
+	        final int nameStart, final int nameEnd) {
+	    return nameEnd > nameStart && xml.charAt(nameStart) != '!' 
+	            && xml.charAt(nameStart) != '?';
+	}
+	
+	/**
+	 * Checks if XML contains exactly the given tag name at the given offset
+	 * 
+	 * @param xml Source XML
+	 * @param offset Offset of the name (right after "&lt;" or "&lt;/")
+	 * @param to End offset of the region (exclusive)
+	 * @param tag Tag name
+	 * @return true if the name matches and is not a prefix of longer name
+	 */
+	public static boolean isName(final CharSequence xml, final int offset,
+	        final int to, final String tag) {
+	    final int nameEnd = offset + tag.length();
+	    return nameEnd < to && regionEquals(xml, offset, nameEnd, tag) 
+	            && isNameEnd(xml.charAt(nameEnd));
+	}
+	
+	/**
+	 * Finds the offset of the first "&lt;tag" that is not a prefix of a 
+	 * longer tag name. A "&lt;tag" right at the end of the region is also 
+	 * returned, because it can turn out to be the tag once more XML is read.
+	 * 
+	 * @see #findTag(CharSequence, String, int, int, int[])
+	 * @param xml Source XML
+	 * @param tag Target tag
+	 * @param from Start offset of the region (inclusive)
+	 * @param to End offset of the region (exclusive)
+	 * @return Offset of "&lt;tag" or -1 if it's not found
+	 */
+	public static int findTagStart(final CharSequence xml, final String tag,
+	        final int from, final int to) {
+	    return findEncodedTagStart(xml, "<".concat(encode(xml, tag)), from, 
+	            to);
+	}
+	
+	/**
+	 * @see #findTagStart(CharSequence, String, int, int)
+	 * @param tagStart Encoded "&lt;tag"
+	 */
+	private static int findEncodedTagStart(final CharSequence xml, 
+	        final String tagStart, final int from, final int to) {
+	    int start = from;
+	    while (true) {
+	        start = indexOf(xml, tagStart, start, to);
+	        if (start == -1) {
+	            return -1;
+	        }
+	        final int nameEnd = start + tagStart.length();
+	        //skip longer tags that share the prefix, i.e. "<someTagX"
+	        if (nameEnd >= to || isNameEnd(xml.charAt(nameEnd))) {
+	            return start;
+	        }
+	        start = nameEnd;
+	    }
+	}
+	
+	/**
+	 * Fills the bounds array used by 
+	 * {@link #findTag(CharSequence, String, int, int, int[])}
+	 * 
+	 * @return always true
+	 */
+	private static boolean setBounds(final int[] bounds, final int tagStart,
+	        final int valueStart, final int valueEnd, final int tagEnd) {
+	    bounds[TAG_START] = tagStart;
+	    bounds[VALUE_START] = valueStart;
+	    bounds[VALUE_END] = valueEnd;
+	    bounds[TAG_END] = tagEnd;
+	    return true;
+	}
+	
+	/**
+	 * Finds a String within the given region of XML. Unlike 
+	 * {@link String#indexOf(String, int)} it never looks beyond 
+	 * <code>to</code>.
+	 * 
+	 * @param xml Source XML
+	 * @param needle String to look for
+	 * @param from Start offset of the region (inclusive)
+	 * @param to End offset of the region (exclusive)
+	 * @return Offset of the needle or -1 if it's not found
+	 */
+	public static int indexOf(final CharSequence xml, final String needle,
+	        final int from, final int to) {
+	    if (to == xml.length() && xml instanceof String) {
+	        return ((String) xml).indexOf(needle, from);
+	    }
+	    if (xml instanceof XmlBytes) {
+	        return ((XmlBytes) xml).indexOf(needle, from, to);
+	    }
+	    final char first = needle.charAt(0);
+	    final int max = to - needle.length();
+	    for (int i = from; i <= max; i++) {
+	        if (xml.charAt(i) == first && regionMatches(xml, i, needle)) {
+	            return i;
+	        }
+	    }
+	    return -1;
+	}
+	
+	/**
+	 * Finds a char within the given region of XML.
+	 * 
+	 * @see #indexOf(CharSequence, String, int, int)
+	 * @param xml Source XML
+	 * @param c Char to look for
+	 * @param from Start offset of the region (inclusive)
+	 * @param to End offset of the region (exclusive)
+	 * @return Offset of the char or -1 if it's not found
+	 */
+	public static int indexOf(final CharSequence xml, final char c,
+	        final int from, final int to) {
+	    if (to == xml.length() && xml instanceof String) {
+	        return ((String) xml).indexOf(c, from);
+	    }
+	    if (xml instanceof XmlBytes) {
+	        return ((XmlBytes) xml).indexOf(c, from, to);
+	    }
+	    for (int i = from; i < to; i++) {
+	        if (xml.charAt(i) == c) {
+	            return i;
+	        }
+	    }
+	    return -1;
+	}
+	
+	/**
+	 * Checks if XML contains the given String at the given offset. Caller 
+	 * must make sure that the String fits.
+	 * 
+	 * @param xml Source XML
+	 * @param offset Offset in XML
+	 * @param needle String to compare with
+	 * @return true if all chars match
+	 */
+	private static boolean regionMatches(final CharSequence xml, 
+	        final int offset, final String needle) {
+	    for (int i = needle.length() - 1; i > 0; i--) {
+	        if (xml.charAt(offset + i) != needle.charAt(i)) {
+	            return false;
+	        }
+	    }
+	    return true;
+	}
+	
+	/**
+	 * Skips leading whitespace in a region, just like {@link String#trim()}
+	 * 
+	 * @param xml Source XML
+	 * @param start Region start
+	 * @param end Region end
+	 * @return Offset of first non-whitespace char, or end
+	 */
+	public static int trimStart(final CharSequence xml, int start, 
+	        final int end) {
+	    while (start < end && xml.charAt(start) <= ' ') {
+	        start++;
+	    }
+	    return start;
+	}
+	
+	/**
+	 * Skips trailing whitespace in a region, just like {@link String#trim()}
+	 * 
+	 * @param xml Source XML
+	 * @param start Region start
+	 * @param end Region end
+	 * @return Offset after the last non-whitespace char, or start
+	 */
+	public static int trimEnd(final CharSequence xml, final int start, 
+	        int end) {
+	    while (end > start && xml.charAt(end - 1) <= ' ') {
+	        end--;
+	    }
+	    return end;
+	}
+	
+	/**
+	 * Makes a String from a region of XML. This is the only place where
+	 * characters get copied.
+	 * 
+	 * @param xml Source XML
+	 * @param start Region start
+	 * @param end Region end
+	 * @return Region contents as String
+	 */
+	public static String substring(final CharSequence xml, final int start,
+	        final int end) {
+	    if (xml instanceof String) {
+	        return ((String) xml).substring(start, end);
+	    }
+	    if (xml instanceof XmlBytes) {
+	        return ((XmlBytes) xml).decode(start, end);
+	    }
+	    return xml.subSequence(start, end).toString();
+	}
+	
+	/**
+	 * Compares a region of XML with a text, without copying the region
+	 * 
+	 * @see #encode(CharSequence, String)
+	 * @param xml Source XML
+	 * @param start Region start
+	 * @param end Region end
+	 * @param text Text in the form it has in source XML
+	 * @return true if region contains exactly the text
+	 */
+	public static boolean regionEquals(final CharSequence xml,
+	        final int start, final int end, final String text) {
+	    if (end - start != text.length()) {
+	        return false;
+	    }
+	    for (int i = 0; i < text.length(); i++) {
+	        if (xml.charAt(start + i) != text.charAt(i)) {
+	            return false;
+	        }
+	    }
+	    return true;
+	}
+	
+	/**
+	 * Compares two regions of XML, i.e. an opening and a closing tag name
+	 * 
+	 * @param xml Source XML
+	 * @param start Region start
+	 * @param end Region end
+	 * @param otherStart Other region start
+	 * @param otherEnd Other region end
+	 * @return true if both regions contain the same chars
+	 */
+	public static boolean regionEquals(final CharSequence xml,
+	        final int start, final int end, final int otherStart, 
+	        final int otherEnd) {
+	    if (end - start != otherEnd - otherStart) {
+	        return false;
+	    }
+	    for (int i = 0; i < end - start; i++) {
+	        if (xml.charAt(start + i) != xml.charAt(otherStart + i)) {
+	            return false;
+	        }
+	    }
+	    return true;
+	}
+	
+	/**
+	 * Converts a tag or attribute name to the form it has in source XML.
+	 * Only {@link XmlBytes} needs that for non-ASCII names.
+	 * 
+	 * @param xml Source XML
+	 * @param name Tag or attribute name
+	 * @return Name that can be looked for in source XML
+	 */
+	public static String encode(final CharSequence xml, final String name) {
+	    if (xml instanceof XmlBytes) {
+	        return ((XmlBytes) xml).encode(name);
+	    }
+	    return name;
+	}
     
 	/**
 	 * Gets int value from {@link Value} object. If the object is null, you can
@@ -237,14 +774,62 @@ public abstract class XmlUtils {
      */
     public static String getAttribute(final String inputXml, final String tag, 
             final String attribute) {
-        final String tagStart = "<".concat(tag).concat(" ");
-        final int start = inputXml.indexOf(tagStart) + tagStart.length();
-        final int end = inputXml.indexOf('>', start);
-        return getAttributeInRange(inputXml, attribute, start, end);
+        return getAttribute(inputXml, 0, inputXml.length(), tag, attribute);
+    }
+    
+    /**
+     * Gets the value of a tag attribute within the given region of XML
+     * 
+     * @see #getAttribute(String, String, String)
+     * @param inputXml Source XML to look the tag for
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param tag Tag name
+     * @param attribute Attribute name
+     * @return Value of the attribute
+     */
+    public static String getAttribute(final CharSequence inputXml, 
+            final int from, final int to, final String tag, 
+            final String attribute) {
+        final int start = findAttributes(inputXml, from, to, tag);
+        if (start == -1) {
+            return null;
+        }
+        return getAttributeInRange(inputXml, attribute, start, to);
+    }
+    
+    /**
+     * Finds the attributes of the first tag with given name that has any
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param tag Tag name
+     * @return Offset right after the tag name or -1 if tag is not found
+     */
+    private static int findAttributes(final CharSequence inputXml, 
+            final int from, final int to, final String tag) {
+        final String name = encode(inputXml, tag);
+        int start = from;
+        //looking for "<tag" followed by whitespace, without building it
+        while (true) {
+            start = indexOf(inputXml, name, start + 1, to);
+            if (start == -1) {
+                return -1;
+            }
+            final int nameEnd = start + name.length();
+            if (inputXml.charAt(start - 1) == '<' && nameEnd < to 
+                    && inputXml.charAt(nameEnd) <= ' ') {
+                return nameEnd;
+            }
+        }
     }
 
     /**
-     * Looks for attribute value in XML String within a given range 
+     * Looks for attribute value in XML String within a given range. The 
+     * range should start within the attributes of a single tag, scanning 
+     * stops at the end of the tag or at the end of the range, whichever 
+     * comes first. Whitespace around "=" is allowed.
      * 
      * @param inputXml Source XML String
      * @param attribute Attribute name
@@ -252,18 +837,197 @@ public abstract class XmlUtils {
      * @param end Range end
      * @return Value of the attribute
      */
-    private static String getAttributeInRange(final String inputXml,
-            final String attribute, int start, int end) {
-        final String attributes = inputXml.substring(start, end).trim();
-        start = attributes.indexOf(attribute.concat("="));
-        if (start == -1) {
+    public static String getAttributeInRange(final CharSequence inputXml,
+            final String attribute, final int start, final int end) {
+        final int[] offsets = new int[4];
+        if (!findAttribute(inputXml, attribute, start, end, offsets)) {
             return null;
         }
-        start += attribute.length() + 1;
-        final char quote = attributes.charAt(start);
-        start++;
-        end = attributes.indexOf(quote, start);
-        return attributes.substring(start, end);
+        return substring(inputXml, offsets[ATTRIBUTE_VALUE_START], 
+                offsets[ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Finds an attribute within a given range, just like 
+     * {@link #getAttributeInRange(CharSequence, String, int, int)}, but 
+     * fills attribute offsets instead of copying the value.
+     * 
+     * @see #scanAttributes(CharSequence, int, int, int[])
+     * @param inputXml Source XML
+     * @param attribute Attribute name
+     * @param start Range start
+     * @param end Range end
+     * @param offsets Array for 4 offsets of the attribute
+     * @return true if attribute is found
+     */
+    public static boolean findAttribute(final CharSequence inputXml,
+            final String attribute, final int start, final int end, 
+            final int[] offsets) {
+        final String name = encode(inputXml, attribute);
+        int offset = start;
+        while (true) {
+            offset = nextAttribute(inputXml, offset, end, offsets);
+            if (offset == -1) {
+                return false;
+            }
+            if (isAttribute(inputXml, offsets, name)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Finds an attribute of the first tag within the given region of XML
+     * 
+     * @see #findAttribute(CharSequence, String, int, int, int[])
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param attribute Attribute name
+     * @param offsets Array for 4 offsets of the attribute
+     * @return true if attribute is found
+     */
+    public static boolean findFirstTagAttribute(final CharSequence inputXml,
+            final int from, final int to, final String attribute, 
+            final int[] offsets) {
+        final int start = getFirstTagStart(inputXml, from, to);
+        if (start == -1) {
+            return false;
+        }
+        return findAttribute(inputXml, attribute, 
+                skipTagName(inputXml, start, to), to, offsets);
+    }
+    
+    /**
+     * Scans all attributes of a tag in a single pass, without making any 
+     * objects. For every attribute 4 offsets are written to the given 
+     * array: {@link #ATTRIBUTE_NAME_START}, {@link #ATTRIBUTE_NAME_END}, 
+     * {@link #ATTRIBUTE_VALUE_START} and {@link #ATTRIBUTE_VALUE_END}. 
+     * Attributes that do not fit are counted, but not written, so the 
+     * caller can retry with a larger array.
+     * <p>
+     * Example:</p>
+     * <pre>
+     * int[] offsets = new int[32];
+     * int count = XmlUtils.scanAttributes(xml, tagStart, xml.length(), 
+     *         offsets);
+     * for (int i = 0; i &lt; count * 4; i += 4) {
+     *     String value = xml.substring(
+     *         offsets[i + XmlUtils.ATTRIBUTE_VALUE_START], 
+     *         offsets[i + XmlUtils.ATTRIBUTE_VALUE_END]);
+     * }
+     * </pre>
+     * 
+     * @param xml Source XML
+     * @param start Offset of "&lt;" of the tag, or any offset between 
+     *        the attributes
+     * @param end End offset of the region (exclusive)
+     * @param offsets Array for attribute offsets, 4 ints per attribute
+     * @return Count of attributes
+     */
+    public static int scanAttributes(final CharSequence xml, final int start,
+            final int end, final int[] offsets) {
+        int offset = skipTagName(xml, start, end);
+        int count = 0;
+        final int[] attribute = new int[4];
+        while (true) {
+            offset = nextAttribute(xml, offset, end, attribute);
+            if (offset == -1) {
+                return count;
+            }
+            if ((count + 1) * 4 <= offsets.length) {
+                System.arraycopy(attribute, 0, offsets, count * 4, 4);
+            }
+            count++;
+        }
+    }
+    
+    /**
+     * Skips "&lt;tag" if the offset points to the beginning of a tag
+     * 
+     * @param xml Source XML
+     * @param start Offset of "&lt;" or an offset between the attributes
+     * @param end End offset of the region (exclusive)
+     * @return Offset right after the tag name, or start
+     */
+    private static int skipTagName(final CharSequence xml, final int start,
+            final int end) {
+        if (start >= end || xml.charAt(start) != '<') {
+            return start;
+        }
+        return findNameEnd(xml, start + 1, end);
+    }
+    
+    /**
+     * Reads the next attribute of a tag. Quotes can be single or double, 
+     * whitespace around "=" is allowed, an attribute with no value gets an
+     * empty value.
+     * 
+     * @param xml Source XML
+     * @param offset Offset between the attributes
+     * @param end End offset of the region (exclusive)
+     * @param attribute Array for 4 offsets of the attribute
+     * @return Offset right after the attribute, or -1 if tag has no more 
+     *         attributes
+     */
+    public static int nextAttribute(final CharSequence xml, int offset, 
+            final int end, final int[] attribute) {
+        offset = trimStart(xml, offset, end);
+        if (offset >= end || isNameEnd(xml.charAt(offset)) 
+                || xml.charAt(offset) == '?') {
+            return -1;
+        }
+        attribute[ATTRIBUTE_NAME_START] = offset;
+        while (offset < end && !isNameEnd(xml.charAt(offset)) 
+                && xml.charAt(offset) != '=') {
+            offset++;
+        }
+        attribute[ATTRIBUTE_NAME_END] = offset;
+        offset = trimStart(xml, offset, end);
+        if (offset >= end || xml.charAt(offset) != '=') {
+            attribute[ATTRIBUTE_VALUE_START] = offset;
+            attribute[ATTRIBUTE_VALUE_END] = offset;
+            return offset;
+        }
+        offset = trimStart(xml, offset + 1, end);
+        if (offset >= end) {
+            return -1;
+        }
+        final char quote = xml.charAt(offset);
+        if (quote == '"' || quote == '\'') {
+            final int valueEnd = indexOf(xml, quote, offset + 1, end);
+            if (valueEnd == -1) {
+                return -1;
+            }
+            attribute[ATTRIBUTE_VALUE_START] = offset + 1;
+            attribute[ATTRIBUTE_VALUE_END] = valueEnd;
+            return valueEnd + 1;
+        }
+        //unquoted value, as found in HTML, can contain "/" but not "/>"
+        attribute[ATTRIBUTE_VALUE_START] = offset;
+        while (offset < end && xml.charAt(offset) > ' ' 
+                && xml.charAt(offset) != '>' && !(xml.charAt(offset) == '/' 
+                        && offset + 1 < end && xml.charAt(offset + 1) == '>')) {
+            offset++;
+        }
+        attribute[ATTRIBUTE_VALUE_END] = offset;
+        return offset;
+    }
+    
+    /**
+     * Checks if the attribute read by 
+     * {@link #nextAttribute(CharSequence, int, int, int[])} has the given
+     * name
+     * 
+     * @param xml Source XML
+     * @param attribute Offsets of the attribute
+     * @param name Encoded attribute name
+     * @return true if names are equal
+     */
+    private static boolean isAttribute(final CharSequence xml, 
+            final int[] attribute, final String name) {
+        return regionEquals(xml, attribute[ATTRIBUTE_NAME_START], 
+                attribute[ATTRIBUTE_NAME_END], name);
     }
     
     /**
@@ -275,13 +1039,113 @@ public abstract class XmlUtils {
      */
     public static String getFirstTagAttribute(final String inputXml, 
             final String attribute) {
-        final String tagStart = "<";
-        int start = inputXml.indexOf(tagStart);
-        if (inputXml.charAt(start + 1) == '?') {
-            start = inputXml.indexOf(tagStart, start + 2);
+        return getFirstTagAttribute(inputXml, 0, inputXml.length(), 
+                attribute);
+    }
+    
+    /**
+     * Gets the attribute value of the first tag within the given region of 
+     * XML
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param attribute Attribute name
+     * @return Value of the attribute
+     */
+    public static String getFirstTagAttribute(final CharSequence inputXml,
+            final int from, final int to, final String attribute) {
+        final int[] offsets = new int[4];
+        if (!findFirstTagAttribute(inputXml, from, to, attribute, offsets)) {
+            return null;
+        }
+        return substring(inputXml, offsets[ATTRIBUTE_VALUE_START], 
+                offsets[ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Gets all attributes of the first tag within the given region of XML, 
+     * reading the tag only once
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Attribute values by name, in the order they appear in XML
+     */
+    public static Map<String, String> getFirstTagAttributes(
+            final CharSequence inputXml, final int from, final int to) {
+        final Map<String, String> result = new LinkedHashMap<String, String>();
+        final int start = getFirstTagStart(inputXml, from, to);
+        if (start == -1) {
+            return result;
+        }
+        final int[] offsets = new int[4];
+        int offset = skipTagName(inputXml, start, to);
+        while ((offset = nextAttribute(inputXml, offset, to, offsets)) != -1) {
+            result.put(substring(inputXml, offsets[ATTRIBUTE_NAME_START], 
+                    offsets[ATTRIBUTE_NAME_END]), 
+                    substring(inputXml, offsets[ATTRIBUTE_VALUE_START], 
+                            offsets[ATTRIBUTE_VALUE_END]));
+        }
+        return result;
+    }
+    
+    /**
+     * Gets values of several attributes of the first tag within the given 
+     * region of XML, reading the tag only once. Only the requested values 
+     * are copied out of XML.
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @param attributes Attribute names
+     * @return Attribute values in the order of names, null for missing ones
+     */
+    public static String[] getFirstTagAttributeValues(
+            final CharSequence inputXml, final int from, final int to, 
+            final String... attributes) {
+        final String[] result = new String[attributes.length];
+        final int start = getFirstTagStart(inputXml, from, to);
+        if (start == -1) {
+            return result;
         }
-        final int end = inputXml.indexOf('>', start);
-        return getAttributeInRange(inputXml, attribute, start, end);
+        final String[] names = new String[attributes.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = encode(inputXml, attributes[i]);
+        }
+        final int[] offsets = new int[4];
+        int offset = skipTagName(inputXml, start, to);
+        while ((offset = nextAttribute(inputXml, offset, to, offsets)) != -1) {
+            for (int i = 0; i < names.length; i++) {
+                if (result[i] == null 
+                        && isAttribute(inputXml, offsets, names[i])) {
+                    result[i] = substring(inputXml, 
+                            offsets[ATTRIBUTE_VALUE_START], 
+                            offsets[ATTRIBUTE_VALUE_END]);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Finds the offset of first tag that is not an XML declaration
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Offset of "&lt;" or -1 if there are no tags
+     */
+    private static int getFirstTagStart(final CharSequence inputXml,
+            final int from, final int to) {
+        final int start = indexOf(inputXml, '<', from, to);
+        //xml declaration
+        if (start != -1 && start + 1 < to 
+                && inputXml.charAt(start + 1) == '?') {
+            return indexOf(inputXml, '<', start + 2, to);
+        }
+        return start;
     }
     
     /**
@@ -291,17 +1155,37 @@ public abstract class XmlUtils {
      * @return Value of first tag
      */
     public static String getFirstTagValue(final String inputXml) {
-        int start = inputXml.indexOf('<');
-        //xml declaration
-        if (inputXml.charAt(start + 1) == '?') {
-            start = inputXml.indexOf('<', start + 1);
+        return getFirstTagValue(inputXml, 0, inputXml.length());
+    }
+    
+    /**
+     * Gets the value of first XML tag within the given region of XML
+     * 
+     * @param inputXml Source XML
+     * @param from Start offset of the region (inclusive)
+     * @param to End offset of the region (exclusive)
+     * @return Value of first tag
+     */
+    public static String getFirstTagValue(final CharSequence inputXml,
+            final int from, final int to) {
+        final int start = getFirstTagStart(inputXml, from, to);
+        if (start == -1) {
+            return null;
         }
-        int end = inputXml.indexOf('>', start);
-        String tag = inputXml.substring(start + 1, end);
-        if (tag.indexOf(' ') != -1) {
-            tag = tag.substring(0, tag.indexOf(' '));
+        final int end = indexOf(inputXml, '>', start, to);
+        if (end == -1) {
+            return null;
+        }
+        int nameEnd = indexOf(inputXml, ' ', start, end);
+        if (nameEnd == -1) {
+            nameEnd = end;
         }
-        return getTagValue(inputXml, tag);
+        final int[] bounds = new int[4];
+        if (!findTag(inputXml, substring(inputXml, start + 1, nameEnd), 
+                start, to, bounds) || bounds[VALUE_START] == -1) {
+            return null;
+        }
+        return substring(inputXml, bounds[VALUE_START], bounds[VALUE_END]);
     }
     
     /**
@@ -312,10 +1196,15 @@ public abstract class XmlUtils {
      * @param tag Tag name
      * @param attribute Attribute name
      * @return Value of the attribute parsed as long
+     * @throws NumberFormatException if attribute is missing or is not a
+     *         number
      */
     public static long getLongAttribute(final String inputXml, final String tag, 
             final String attribute) {
-        return Long.parseLong(getAttribute(inputXml, tag, attribute));
+        final int[] offsets = new int[4];
+        findTagAttribute(inputXml, tag, attribute, offsets);
+        return parseLong(inputXml, offsets[ATTRIBUTE_VALUE_START], 
+                offsets[ATTRIBUTE_VALUE_END]);
     }
 
     /**
@@ -326,9 +1215,232 @@ public abstract class XmlUtils {
      * @param tag Tag name
      * @param attribute Attribute name
      * @return Value of the attribute parsed as int
+     * @throws NumberFormatException if attribute is missing or is not a
+     *         number
      */
     public static int getIntAttribute(final String inputXml, final String tag, 
             final String attribute) {
-        return Integer.parseInt(getAttribute(inputXml, tag, attribute));
+        final int[] offsets = new int[4];
+        findTagAttribute(inputXml, tag, attribute, offsets);
+        return parseInt(inputXml, offsets[ATTRIBUTE_VALUE_START], 
+                offsets[ATTRIBUTE_VALUE_END]);
+    }
+    
+    /**
+     * Finds an attribute of a tag for parsing it's value
+     * 
+     * @param inputXml Source XML
+     * @param tag Tag name
+     * @param attribute Attribute name
+     * @param offsets Array for 4 offsets of the attribute
+     * @throws NumberFormatException if attribute is not found
+     */
+    private static void findTagAttribute(final String inputXml, 
+            final String tag, final String attribute, final int[] offsets) {
+        final int start = findAttributes(inputXml, 0, inputXml.length(), tag);
+        if (start == -1 || !findAttribute(inputXml, attribute, start, 
+                inputXml.length(), offsets)) {
+            throw new NumberFormatException("null");
+        }
+    }
+    
+    /**
+     * Parses a region of XML as int, without making a String. Surrounding 
+     * whitespace is ignored.
+     * 
+     * @see Integer#parseInt(String)
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return Parsed value
+     * @throws NumberFormatException if region is not an int
+     */
+    public static int parseInt(final CharSequence xml, final int start, 
+            final int end) {
+        final long value = parseLong(xml, start, end);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormatException(xml, start, end);
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Parses a region of XML as long, without making a String. Surrounding 
+     * whitespace is ignored.
+     * 
+     * @see Long#parseLong(String)
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return Parsed value
+     * @throws NumberFormatException if region is not a long
+     */
+    public static long parseLong(final CharSequence xml, int start, 
+            int end) {
+        start = trimStart(xml, start, end);
+        end = trimEnd(xml, start, end);
+        int offset = start;
+        boolean negative = false;
+        if (offset < end && (xml.charAt(offset) == '-' 
+                || xml.charAt(offset) == '+')) {
+            negative = xml.charAt(offset) == '-';
+            offset++;
+        }
+        if (offset == end) {
+            throw numberFormatException(xml, start, end);
+        }
+        //accumulating negatively, so Long.MIN_VALUE fits
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long limitBeforeDigit = limit / 10;
+        long result = 0;
+        for (; offset < end; offset++) {
+            final int digit = xml.charAt(offset) - '0';
+            if (digit < 0 || digit > 9 || result < limitBeforeDigit) {
+                throw numberFormatException(xml, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(xml, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+    
+    /**
+     * Parses a region of XML as double, without making a String for plain
+     * decimal numbers of up to 15 significant digits. Other numbers are 
+     * parsed by {@link Double#parseDouble(String)}. Surrounding whitespace 
+     * is ignored.
+     * 
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return Parsed value
+     * @throws NumberFormatException if region is not a double
+     */
+    public static double parseDouble(final CharSequence xml, int start, 
+            int end) {
+        start = trimStart(xml, start, end);
+        end = trimEnd(xml, start, end);
+        int offset = start;
+        final boolean negative = offset < end && xml.charAt(offset) == '-';
+        if (negative || offset < end && xml.charAt(offset) == '+') {
+            offset++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean point = false;
+        for (; offset < end; offset++) {
+            final char c = xml.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + c - '0';
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (offset < end && (xml.charAt(offset) == 'e' 
+                || xml.charAt(offset) == 'E')) {
+            offset++;
+            final boolean negativeExponent = offset < end 
+                    && xml.charAt(offset) == '-';
+            if (negativeExponent || offset < end 
+                    && xml.charAt(offset) == '+') {
+                offset++;
+            }
+            final int exponentStart = offset;
+            int value = 0;
+            for (; offset < end && offset - exponentStart < 4; offset++) {
+                final int digit = xml.charAt(offset) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (offset == exponentStart) {
+                //no digits, let Double.parseDouble complain
+                offset = -1;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        //both mantissa and the power of ten are exact, so there is only one
+        //rounding, just like in Double.parseDouble
+        if (offset == end && digits <= 15 && exponent >= -22 
+                && exponent <= 22 && (digits > 0 || hasDigit(xml, start, end))) {
+            final double value = exponent < 0 
+                    ? mantissa / POWERS_OF_TEN[-exponent] 
+                    : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(substring(xml, start, end));
+    }
+    
+    /**
+     * Checks if a region contains a decimal digit
+     * 
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return true if there is a digit
+     */
+    private static boolean hasDigit(final CharSequence xml, final int start, 
+            final int end) {
+        for (int i = start; i < end; i++) {
+            if (xml.charAt(i) >= '0' && xml.charAt(i) <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parses a region of XML as boolean, without making a String. Just like
+     * {@link Boolean#parseBoolean(String)}, only "true" (ignoring case) is 
+     * true. Surrounding whitespace is ignored.
+     * 
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return Parsed value
+     */
+    public static boolean parseBoolean(final CharSequence xml, int start, 
+            int end) {
+        start = trimStart(xml, start, end);
+        end = trimEnd(xml, start, end);
+        if (end - start != 4) {
+            return false;
+        }
+        final String value = "true";
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase(xml.charAt(start + i)) 
+                    != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Makes the exception that is thrown when a region is not a number
+     * 
+     * @param xml Source XML
+     * @param start Region start
+     * @param end Region end
+     * @return Exception with the same message as 
+     *         {@link Long#parseLong(String)} uses
+     */
+    private static NumberFormatException numberFormatException(
+            final CharSequence xml, final int start, final int end) {
+        return new NumberFormatException("For input string: \""
+                + substring(xml, start, end) + "\"");
     }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BatchSlicer}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class BatchSlicerTest {
+
+    private static final Log log = LogFactory.getLog(BatchSlicerTest.class);
+    
+    @Test
+    public void testCutAll() throws Exception {
+        final List<Path> paths = makeFiles(300);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final BatchExtractor<Integer> extractor = new BatchExtractor<Integer>() {
+            public Integer extract(Path path, XmlSlicer xml) throws Exception {
+                final int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                try {
+                    if (xml.get("id").toString() == null) {
+                        throw new Exception("No id in " + path);
+                    }
+                    return xml.get("id").asInt();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        for (String charset : new String[] {"UTF-8", null}) {
+            List<BatchResult<Integer>> results = XmlSlicer.cutAll(paths, 
+                    charset, 4, extractor);
+            assertEquals(paths.size(), results.size());
+            int failed = 0;
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult<Integer> result = results.get(i);
+                assertEquals(paths.get(i), result.getPath());
+                if (result.isFailed()) {
+                    log.debug(result);
+                    failed++;
+                } else {
+                    assertEquals(Integer.valueOf(i), result.getValue());
+                }
+            }
+            //one file without id, one missing file
+            assertEquals(2, failed);
+            assertTrue(maxRunning.get() <= 4);
+        }
+    }
+    
+    @Test
+    public void testListener() throws Exception {
+        final List<Path> paths = makeFiles(50);
+        final List<Integer> ids = new ArrayList<Integer>();
+        XmlSlicer.cutAll(paths, "UTF-8", 3, new BatchExtractor<Integer>() {
+            public Integer extract(Path path, XmlSlicer xml) {
+                return xml.get("id").asInt();
+            }
+        }, new BatchListener<Integer>() {
+            public void onResult(BatchResult<Integer> result) {
+                synchronized (ids) {
+                    if (!result.isFailed()) {
+                        ids.add(result.getValue());
+                    }
+                }
+            }
+        });
+        assertEquals(48, ids.size());
+        try {
+            XmlSlicer.cutAll(paths, "UTF-8", 3, new BatchExtractor<String>() {
+                public String extract(Path path, XmlSlicer xml) {
+                    return xml.toString();
+                }
+            }, new BatchListener<String>() {
+                public void onResult(BatchResult<String> result) {
+                    throw new IllegalStateException("Listener failure");
+                }
+            });
+            fail("Listener failure should be reported");
+        } catch (XmlZenException e) {
+            assertFalse(e.getCause() == null);
+        }
+    }
+    
+    @Test
+    public void testError() throws Exception {
+        final List<Path> paths = makeFiles(20);
+        try {
+            XmlSlicer.cutAll(paths, "UTF-8", 2, new BatchExtractor<String>() {
+                public String extract(Path path, XmlSlicer xml) {
+                    if (path.endsWith("5.xml")) {
+                        throw new AssertionError("Extractor bug");
+                    }
+                    return xml.toString();
+                }
+            });
+            fail("Error should fail the batch");
+        } catch (XmlZenException e) {
+            log.debug("Expected", e);
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+    }
+    
+    private static List<Path> makeFiles(final int count) throws Exception {
+        File dir = Files.createTempDirectory("xmlzen").toFile();
+        dir.deleteOnExit();
+        List<Path> paths = new ArrayList<Path>();
+        for (int i = 0; i < count; i++) {
+            File file = new File(dir, i + ".xml");
+            file.deleteOnExit();
+            paths.add(file.toPath());
+            if (i == 7) {
+                //missing file
+                continue;
+            }
+            String xml = i == 13 ? "<record/>" 
+                    : "<record><id>" + i + "</id><name>ąžuolas</name></record>";
+            Files.write(file.toPath(), xml.getBytes("UTF-8"));
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlBytes;
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Unit tests for {@link FieldSet}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class FieldSetTest {
+
+    private static final Log log = LogFactory.getLog(FieldSetTest.class);
+    
+    @Test
+    public void testSameAsGet() throws Exception {
+        String html = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8");
+        String[] tags = {"title", "div", "a", "missing", "br", "body", "d", 
+                "script", "div"};
+        assertSameAsGet(XmlSlicer.cut(html), tags);
+        assertSameAsGet(XmlSlicer.cut(html).index(), tags);
+        String odd = "<r><ab>1</ab><a>2<a>3</a></a><b/><c>unclosed<ė>ą</ė>"
+                + "</r>";
+        String[] oddTags = {"a", "ab", "b", "c", "ė", "r", "x"};
+        assertSameAsGet(XmlSlicer.cut(odd), oddTags);
+        Charset utf8 = Charset.forName("UTF-8");
+        assertSameAsGet(XmlSlicer.cut(new XmlBytes(
+                ByteBuffer.wrap(odd.getBytes(utf8)), utf8)), oddTags);
+        assertSameAsGet(XmlSlicer.cut(odd).get("r"), oddTags);
+    }
+    
+    @Test
+    public void testBounds() {
+        XmlSlicer record = XmlSlicer.cut("<x><u><name> Tom </name><id>7</id>"
+                + "</u></x>").get("x");
+        FieldSet fields = XmlSlicer.fields("id", "name", "age");
+        int[] bounds = new int[12];
+        assertEquals(2, record.extract(fields, bounds));
+        assertEquals("7", record.subSequence(bounds[XmlUtils.VALUE_START], 
+                bounds[XmlUtils.VALUE_END]).toString());
+        assertEquals("<name> Tom </name>", record.subSequence(
+                bounds[4 + XmlUtils.TAG_START], 
+                bounds[4 + XmlUtils.TAG_END]).toString());
+        assertEquals(-1, bounds[8 + XmlUtils.TAG_START]);
+        assertEquals("id,name,age", fields.toString());
+        try {
+            XmlSlicer.fields("id", "");
+            fail("Should not allow empty tag names");
+        } catch (XmlZenException e) {
+            log.debug("Expected", e);
+        }
+    }
+    
+    private static void assertSameAsGet(final XmlSlicer slicer, 
+            final String[] tags) {
+        XmlSlicer[] values = slicer.extract(tags);
+        for (int i = 0; i < tags.length; i++) {
+            assertEquals(tags[i], slicer.get(tags[i]).toString(), 
+                    values[i].toString());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link InflatingChannel}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class InflatingChannelTest {
+
+    private static final Log log = 
+        LogFactory.getLog(InflatingChannelTest.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testStreamMatchesGetTags() throws Exception {
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        byte[] gzip = gzip(Files.readAllBytes(html.toPath()));
+        for (String tag : new String[] {"a", "div", "missing"}) {
+            List<String> expected = XmlSlicer.cut(html, "UTF-8").getTags(tag)
+                    .asList();
+            assertEquals(expected, read(XmlSlicer.streamGzip(
+                    new ByteArrayInputStream(gzip), tag, "UTF-8")));
+            //tiny ring makes the inflater wait for the reader
+            assertEquals(expected, read(new XmlStream(new InflatingChannel(
+                    new ByteArrayInputStream(gzip), 2, 16), tag, UTF8)));
+        }
+    }
+
+    @Test
+    public void testBrokenInput() throws Exception {
+        byte[] gzip = gzip("<a>1</a><a>2</a><a>3</a>".getBytes(UTF8));
+        XmlStream truncated = XmlSlicer.streamGzip(new ByteArrayInputStream(
+                Arrays.copyOf(gzip, gzip.length - 12)), "a", "UTF-8");
+        try {
+            read(truncated);
+            fail("Truncated gzip should fail");
+        } catch (XmlZenException e) {
+            log.debug("Expected", e);
+        }
+        //closing before the end stops inflating
+        InflatingChannel channel = new InflatingChannel(
+                new ByteArrayInputStream(gzip), 1, 4);
+        XmlStream stream = new XmlStream(channel, "a", UTF8, 4);
+        assertEquals("<a>1</a>", stream.next().toString());
+        stream.close();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailingSource() throws Exception {
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            xml.append("<a>").append(i).append("</a>");
+        }
+        byte[] gzip = gzip(xml.toString().getBytes(UTF8));
+        //a single big buffer: data inflated before the failure is not lost
+        InflatingChannel channel = new InflatingChannel(
+                failing(gzip, new IOException("disk")), 1, 1 << 20);
+        ByteBuffer dst = ByteBuffer.allocate(1 << 20);
+        try {
+            while (channel.read(dst) != -1) {
+                //keep reading
+            }
+            fail("Failing source should fail");
+        } catch (IOException e) {
+            log.debug("Expected", e);
+        }
+        assertTrue(dst.position() > 0);
+        channel.close();
+        //unchecked failure of the inflating thread must not hang the reader
+        channel = new InflatingChannel(failing(gzip, 
+                new IllegalStateException("bug")), 2, 1024);
+        try {
+            while (channel.read(ByteBuffer.allocate(1024)) != -1) {
+                //keep reading
+            }
+            fail("Failing source should fail");
+        } catch (IOException e) {
+            log.debug("Expected", e);
+        }
+        channel.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testClosesGzipStream() throws Exception {
+        byte[] gzip = gzip("<a>1</a><a>2</a>".getBytes(UTF8));
+        //closing the gzip stream closes the source it reads
+        ClosingInput source = new ClosingInput(new ByteArrayInputStream(gzip));
+        InflatingChannel channel = new InflatingChannel(source, 2, 4);
+        while (channel.read(ByteBuffer.allocate(4)) != -1) {
+            //read till the end, without closing the channel
+        }
+        assertTrue(source.closed);
+        source = new ClosingInput(failing(gzip, new IOException("disk")));
+        channel = new InflatingChannel(source, 2, 4);
+        try {
+            while (channel.read(ByteBuffer.allocate(4)) != -1) {
+                //keep reading
+            }
+            fail("Failing source should fail");
+        } catch (IOException e) {
+            log.debug("Expected", e);
+        }
+        assertTrue(source.closed);
+    }
+
+    /**
+     * Remembers if it was closed
+     */
+    private static final class ClosingInput extends FilterInputStream {
+        private volatile boolean closed;
+        ClosingInput(final InputStream in) {
+            super(in);
+        }
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    /**
+     * Serves the first half of data, then throws the given failure
+     */
+    private static InputStream failing(final byte[] data, 
+            final Exception failure) {
+        final InputStream half = 
+            new ByteArrayInputStream(data, 0, data.length / 2);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                final byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+            @Override
+            public int read(final byte[] b, final int off, final int len) 
+                    throws IOException {
+                final int read = half.read(b, off, len);
+                if (read == -1) {
+                    if (failure instanceof RuntimeException) {
+                        throw (RuntimeException) failure;
+                    }
+                    throw (IOException) failure;
+                }
+                return read;
+            }
+        };
+    }
+
+    private static List<String> read(final XmlStream stream) {
+        List<String> result = new ArrayList<String>();
+        try {
+            for (XmlSlicer tag : stream) {
+                result.add(tag.toString());
+            }
+        } finally {
+            stream.close();
+        }
+        return result;
+    }
+
+    private static byte[] gzip(final byte[] data) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(data);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link MappedXml}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class MappedXmlTest {
+
+    private static final Log log = LogFactory.getLog(MappedXmlTest.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testSameAsGetTags() throws Exception {
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        XmlSlicer slicer = XmlSlicer.cut(html, "UTF-8");
+        for (int segment : new int[] {1 << 14, 50000, 1 << 20}) {
+            MappedXml mapped = new MappedXml(html.toPath(), UTF8, segment);
+            assertEquals(html.length(), mapped.length());
+            for (String tag : new String[] {"a", "li", "script", "missing"}) {
+                assertEquals(tag + " in segments of " + segment, 
+                        slicer.getTags(tag).asList(), 
+                        mapped.getTags(tag).asList());
+            }
+            mapped.close();
+        }
+        MappedXml mapped = XmlSlicer.map(html.toPath(), "UTF-8");
+        assertEquals(slicer.getTags("div").asList(), 
+                mapped.getTags("div").asList());
+        assertEquals(slicer.get("title").toString(), 
+                mapped.get("title").toString());
+        assertEquals(slicer.getTagAttribute("script", "src"), 
+                mapped.getTagAttribute("script", "src"));
+        assertNull(mapped.get("missing").toString());
+        mapped.close();
+        //tags without attributes are skipped, like in XmlSlicer
+        Path path = Files.createTempFile("xmlzen", ".xml");
+        path.toFile().deleteOnExit();
+        String links = "<r><a>x</a><a href=\"y\">z</a><a\nhref='w'/></r>";
+        Files.write(path, links.getBytes(UTF8));
+        mapped = XmlSlicer.map(path, "UTF-8");
+        assertEquals("y", XmlSlicer.cut(links).getTagAttribute("a", "href"));
+        assertEquals("y", mapped.getTagAttribute("a", "href"));
+        assertNull(mapped.getTagAttribute("a", "id"));
+        assertNull(mapped.getTagAttribute("missing", "href"));
+        mapped.close();
+    }
+
+    @Test
+    public void testTagsAcrossSegments() throws Exception {
+        StringBuilder xml = new StringBuilder("<records>");
+        for (int i = 0; i < 500; i++) {
+            xml.append("<record id=\"").append(i).append("\"><name>ąžuolas ")
+                    .append(i).append("</name></record>\n");
+        }
+        xml.append("</records>");
+        Path path = Files.createTempFile("xmlzen", ".xml");
+        path.toFile().deleteOnExit();
+        Files.write(path, xml.toString().getBytes(UTF8));
+        //segments of 100 bytes cut almost every record
+        MappedXml mapped = new MappedXml(path, UTF8, 100);
+        XmlCursor cursor = new XmlCursor("record");
+        for (int i = 0; i < 250; i++) {
+            XmlSlicer record = cursor.next(mapped);
+            assertEquals(String.valueOf(i), record.attribute("id"));
+        }
+        //resume with a new file and the saved position
+        mapped.close();
+        mapped = new MappedXml(path, UTF8, 64);
+        cursor = new XmlCursor("record", cursor.getPosition());
+        for (int i = 250; i < 500; i++) {
+            XmlSlicer record = cursor.next(mapped);
+            assertEquals("ąžuolas " + i, record.get("name").toString());
+        }
+        assertNull(cursor.next(mapped));
+        assertEquals(Files.size(path), cursor.getPosition());
+        try {
+            mapped.getTags("records");
+            fail("Tag should not fit into a segment");
+        } catch (XmlZenException e) {
+            log.debug("Expected", e);
+        }
+        mapped.close();
+    }
+}
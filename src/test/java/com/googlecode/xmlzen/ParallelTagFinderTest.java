@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link ParallelTagFinder}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class ParallelTagFinderTest {
+
+    private static final Log log = 
+        LogFactory.getLog(ParallelTagFinderTest.class);
+    
+    private static final String[] PIECES = {"<r>", "</r>", "<r id='1'>", 
+        "<r/>", "<rr>", "</rr>", "text", " ", "<x>", "</x>"};
+    
+    @Test
+    public void testSameAsSequential() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(7);
+        for (int n = 0; n < 200; n++) {
+            StringBuilder xml = new StringBuilder();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                xml.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            XmlSlicer slicer = XmlSlicer.cut(xml.toString());
+            for (int chunk : new int[] {1, 5, 17, 100}) {
+                assertEquals(xml.toString(), toList(slicer.getTags("r")), 
+                        toList(ParallelTagFinder.findAll(xml, "r", 0, 
+                                xml.length(), pool, chunk), xml));
+            }
+        }
+        String html = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8");
+        for (String tag : new String[] {"div", "a", "br", "script"}) {
+            assertEquals(toList(XmlSlicer.cut(html).getTags(tag)), 
+                    toList(ParallelTagFinder.findAll(html, tag, 0, 
+                            html.length(), pool, 1000), html));
+        }
+        pool.shutdown();
+    }
+    
+    @Test
+    public void testGetTagsParallel() throws Exception {
+        StringBuilder xml = new StringBuilder("<records>");
+        for (int i = 0; i < 200000; i++) {
+            xml.append("<record id=\"").append(i).append("\"><record>")
+                .append(i).append("</record></record>\n");
+        }
+        XmlSlicer records = XmlSlicer.cut(xml.append("</records>")
+                .toString());
+        long start = System.nanoTime();
+        XmlSlicerList sequential = records.getTags("record");
+        log.debug("Sequential getTags took: " + (System.nanoTime() - start)
+                / 1000000000.0 + " sec ");
+        start = System.nanoTime();
+        XmlSlicerList parallel = records.getTagsParallel("record");
+        log.debug("Parallel getTags took: " + (System.nanoTime() - start)
+                / 1000000000.0 + " sec ");
+        assertEquals(200000, parallel.size());
+        assertEquals(sequential.asList(), parallel.asList());
+    }
+    
+    private static String toList(final XmlSlicerList list) {
+        return list.asList().toString();
+    }
+    
+    private static String toList(final int[] found, final CharSequence xml) {
+        XmlSlicerList list = new XmlSlicerList();
+        for (int i = 0; i < found.length; i += 4) {
+            list.add(XmlSlicer.cut(xml.subSequence(found[i], found[i + 3])
+                    .toString()));
+        }
+        return toList(list);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlBytes;
+
+/**
+ * Unit tests for {@link SlicePathSet}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class SlicePathSetTest {
+
+    private static final Log log = LogFactory.getLog(SlicePathSetTest.class);
+    
+    @Test
+    public void testSameAsGet() throws Exception {
+        String xml = "<msg><header><type>order</type><id>1</id></header>"
+                + "<body><order><id> 77 </id><line/><line>a</line></order>"
+                + "<refund><id>5</id></refund><a><a>inner</a></a>"
+                + "<ė><ą>ū</ą></ė></body></msg>";
+        String[] paths = {"msg/header/type", "msg/body/order/id", "id", 
+                "msg/body/refund/id", "msg/body/refund/type", "body/line", 
+                "a/a", "a", "a/a/a", "ė/ą", "msg/missing", "order/line/x", 
+                "msg/header", "header/id"};
+        assertSameAsGet(XmlSlicer.cut(xml), paths);
+        Charset utf8 = Charset.forName("UTF-8");
+        assertSameAsGet(XmlSlicer.cut(new XmlBytes(
+                ByteBuffer.wrap(xml.getBytes(utf8)), utf8)), paths);
+        assertSameAsGet(XmlSlicer.cut(xml).get("body"), paths);
+        assertSameAsGet(XmlSlicer.cut("<a><b>unclosed</a><b>x</b>"), 
+                new String[] {"a/b", "b", "a"});
+        String html = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8");
+        assertSameAsGet(XmlSlicer.cut(html).get("body"), new String[] {
+                "div/div", "div/a", "form", "form/input", "div/p/a", "title",
+                "div/div/div/div", "script"});
+    }
+    
+    @Test
+    public void testManyPaths() {
+        StringBuilder xml = new StringBuilder("<msg>");
+        for (int i = 0; i < 200; i++) {
+            xml.append("<f").append(i).append("><v>").append(i)
+                .append("</v></f").append(i).append(">");
+        }
+        xml.append("</msg>");
+        List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            paths.add("msg/f" + i + "/v");
+        }
+        XmlSlicer message = XmlSlicer.cut(xml.toString());
+        SlicePathSet set = XmlSlicer.compileAll(
+                paths.toArray(new String[paths.size()]));
+        long start = System.nanoTime();
+        XmlSlicer[] values = null;
+        for (int i = 0; i < 1000; i++) {
+            values = message.get(set);
+        }
+        log.debug("1000 passes with 200 paths took: " 
+                + (System.nanoTime() - start) / 1000000000.0 + " sec ");
+        for (int i = 0; i < 200; i++) {
+            assertEquals(String.valueOf(i), values[i].toString());
+        }
+    }
+    
+    private static void assertSameAsGet(final XmlSlicer slicer, 
+            final String[] paths) {
+        XmlSlicer[] values = slicer.get(XmlSlicer.compileAll(paths));
+        for (int i = 0; i < paths.length; i++) {
+            assertEquals(paths[i], slicer.get(XmlSlicer.compile(paths[i]))
+                    .toString(), values[i].toString());
+        }
+    }
+}
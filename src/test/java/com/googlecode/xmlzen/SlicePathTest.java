@@ -0,0 +1,72 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link SlicePath}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class SlicePathTest {
+
+    private static final SlicePath TAG3 = 
+        XmlSlicer.compile("tagB/innerTag1/tag3");
+    
+    private static final SlicePath TAGS = XmlSlicer.compile("/xml/tagB/");
+    
+    @Test
+    public void testPath() throws Exception {
+        XmlSlicer xml = XmlSlicer.cut(FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/simple.xml")));
+        assertEquals("6", xml.get(TAG3).toString());
+        assertEquals("<tag3>6</tag3>", xml.getTag(TAG3).toString());
+        assertEquals(xml.get("xml").getTags("tagB").asList(), 
+                xml.getTags(TAGS).asList());
+        assertEquals(xml.get("xml").getAllValuesIn("tagB").asList(), 
+                xml.getAllValuesIn(TAGS).asList());
+        SlicePath tag1 = XmlSlicer.compile("innerTag2/tag1");
+        assertEquals("7", xml.get("tagB").get(tag1).toString());
+        assertEquals(null, xml.get("tagA").get(tag1).toString());
+        assertTrue(xml.getTags(XmlSlicer.compile("tagA/tag1/x")).isEmpty());
+        assertEquals("tagB/innerTag1/tag3", TAG3.toString());
+    }
+    
+    @Test
+    public void testInvalidPath() throws Exception {
+        try {
+            XmlSlicer.compile("a//b");
+            fail("Empty tag name passed through");
+        } catch (final XmlZenException e) {
+            //expected
+        }
+        try {
+            XmlSlicer.compile("");
+            fail("Empty path passed through");
+        } catch (final XmlZenException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.XmlBytes;
+
+/**
+ * Unit tests for {@link SymbolTable}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class SymbolTableTest {
+
+    @Test
+    public void testAddAndLookup() throws Exception {
+        SymbolTable table = new SymbolTable();
+        String xml = "<tag0>";
+        assertEquals(-1, table.lookup(xml, 1, 5));
+        assertEquals(0, table.add(xml, 1, 5));
+        assertEquals(0, table.add(xml, 1, 5));
+        //grows past the initial capacity
+        for (int i = 1; i < 100; i++) {
+            String name = "tag" + i;
+            assertEquals(i, table.add(name, 0, name.length()));
+        }
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            String name = "<tag" + i + ">";
+            assertEquals(i, table.lookup(name, 1, name.length() - 1));
+            assertEquals("tag" + i, table.name(i));
+        }
+        assertEquals(-1, table.lookup("tag", 0, 3));
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        SymbolTable table = new SymbolTable(new String[] {"a", "ąžuolas"});
+        assertSame(table, table.encode("<a/>"));
+        Charset utf8 = Charset.forName("UTF-8");
+        XmlBytes xml = new XmlBytes(ByteBuffer.wrap(
+                "<ąžuolas/>".getBytes(utf8)), utf8);
+        SymbolTable encoded = table.encode(xml);
+        assertEquals(1, encoded.lookup(xml, 1, xml.length() - 2));
+        assertEquals(-1, table.lookup(xml, 1, xml.length() - 2));
+    }
+}
@@ -22,6 +22,8 @@ import static org.junit.Assert.fail;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 /**
@@ -34,6 +36,20 @@ public class XmlBuilderTest {
 
     private static final Log log = LogFactory.getLog(XmlBuilderTest.class);
 
+    @Before
+    public void resetDefaults() {
+        //defaults are static, so tests must not depend on execution order
+        XmlBuilder.setDefaultFormatting(false);
+        XmlBuilder.setDefaultXmlEncoding(null);
+    }
+
+    @After
+    public void restoreDefaults() {
+        //tests of other classes expect the defaults XmlBuilder starts with
+        XmlBuilder.setDefaultFormatting(true);
+        XmlBuilder.setDefaultXmlEncoding(null);
+    }
+
     @Test
     public void testBuild() throws Exception {
         XmlBuilder.setDefaultFormatting(false);
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Unit tests for {@link XmlCursor}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlCursorTest {
+
+    private static final Log log = LogFactory.getLog(XmlCursorTest.class);
+
+    private static final String XML = "<?xml version=\"1.0\"?><records>"
+            + "<record id=\"1\">ą</record><record id=\"2\"/>"
+            + "<other><record id=\"3\">c</record></other>"
+            + "<record id=\"4\">d</record></records>";
+
+    @Test
+    public void testResumeSlicer() throws Exception {
+        File file = File.createTempFile("xmlzen", ".xml");
+        file.deleteOnExit();
+        Files.write(file.toPath(), XML.getBytes("UTF-8"));
+        for (XmlSlicer source : new XmlSlicer[] {XmlSlicer.cut(XML), 
+                XmlSlicer.cut(file.toPath(), "UTF-8"), 
+                XmlSlicer.cut(XML).get("records")}) {
+            XmlCursor cursor = new XmlCursor("record");
+            assertEquals("1", cursor.next(source).attribute("id"));
+            assertEquals("2", cursor.next(source).attribute("id"));
+            //a job that stopped here continues with a restored cursor
+            XmlCursor restored = restore(cursor);
+            log.debug("Restored " + restored);
+            assertEquals(cursor.getPosition(), restored.getPosition());
+            assertEquals("3", restored.next(source).attribute("id"));
+            assertEquals("4", restored.next(source).attribute("id"));
+            assertNull(restored.next(source));
+            assertNull(restored.next(source));
+        }
+        assertNull(new XmlCursor("record").next(XmlSlicer.cut((String) null)));
+    }
+
+    @Test
+    public void testResumeStream() throws Exception {
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        List<String> expected = XmlSlicer.cut(html, "UTF-8").getTags("a")
+                .asList();
+        XmlCursor cursor = new XmlCursor("a");
+        List<String> actual = new ArrayList<String>();
+        XmlStream links = cursor.stream(new FileInputStream(html), "UTF-8");
+        for (XmlSlicer a : links) {
+            actual.add(a.toString());
+            if (actual.size() == 10) {
+                break;
+            }
+        }
+        links.close();
+        //seekable file channel
+        XmlCursor restored = restore(cursor);
+        links = restored.stream(new FileInputStream(html), "UTF-8");
+        actual.add(links.next().toString());
+        assertEquals(restored.getPosition(), links.getPosition());
+        links.close();
+        //stream that is skipped by reading
+        links = restore(restored).stream(new ByteArrayInputStream(
+                Files.readAllBytes(html.toPath())), "UTF-8");
+        for (XmlSlicer a : links) {
+            actual.add(a.toString());
+        }
+        assertEquals(expected, actual);
+        assertTrue(actual.size() > 20);
+        links = new XmlCursor("a", html.length() + 10).stream(
+                new ByteArrayInputStream(new byte[10]), "UTF-8");
+        assertEquals(false, links.hasNext());
+    }
+
+    @Test
+    public void testGetTagValue() throws Exception {
+        XmlCursor cursor = new XmlCursor("record");
+        assertEquals("ą", XmlUtils.getTagValue(XML, cursor, true));
+        assertNull(XmlUtils.getTagValue(XML, cursor, true));
+        assertEquals("<record id=\"3\">c</record>", 
+                XmlUtils.getTagValue(XML, cursor, false));
+        assertEquals("d", XmlUtils.getTagValue(XML, cursor, true));
+        long end = cursor.getPosition();
+        assertNull(XmlUtils.getTagValue(XML, cursor, true));
+        assertEquals(end, cursor.getPosition());
+        assertEquals("record@" + end, cursor.toString());
+        //positions of files larger than 2 GB do not fit in a CharSequence
+        try {
+            XmlUtils.getTagValue(XML, new XmlCursor("record", 
+                    Integer.MAX_VALUE + 1L), true);
+            fail("Position above Integer.MAX_VALUE should be rejected");
+        } catch (XmlZenException e) {
+            log.debug("Expected", e);
+        }
+    }
+
+    private static XmlCursor restore(final XmlCursor cursor) 
+            throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(cursor);
+        out.close();
+        return (XmlCursor) new ObjectInputStream(new ByteArrayInputStream(
+                bytes.toByteArray())).readObject();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link XmlIndex}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlIndexTest {
+
+    private static final Log log = LogFactory.getLog(XmlIndexTest.class);
+    
+    private static final String[] HTML_TAGS = {"html", "head", "body", "div", 
+        "a", "img", "form", "input", "script", "span", "li", "ul", "meta", 
+        "br", "p", "table", "td", "tr", "nonexistent"};
+    
+    @Test
+    public void testIndexMatchesScanning() throws Exception {
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        assertSameResults(XmlSlicer.cut(FileUtils.readFile(html, "UTF-8")));
+        assertSameResults(XmlSlicer.cut(html.toPath(), "UTF-8"));
+        assertSameResults(XmlSlicer.cut("<a><ab>x</ab><a>1</a></a><a/>" 
+                + "<n><n>2</n>"));
+    }
+    
+    private void assertSameResults(final XmlSlicer plain) {
+        final XmlSlicer indexed = plain.index();
+        for (String tag : HTML_TAGS) {
+            assertEquals(tag, plain.getTags(tag).asList(), 
+                    indexed.getTags(tag).asList());
+            assertEquals(tag, plain.getAllValuesIn(tag).asList(), 
+                    indexed.getAllValuesIn(tag).asList());
+            assertEquals(tag, plain.get(tag).toString(), 
+                    indexed.get(tag).toString());
+            assertEquals(tag, plain.getTagAttribute(tag, "id"), 
+                    indexed.getTagAttribute(tag, "id"));
+            for (XmlSlicer div : indexed.getTags("div")) {
+                assertEquals(XmlSlicer.cut(div.toString()).getTags(tag)
+                        .asList(), div.getTags(tag).asList());
+            }
+        }
+        for (String tag : new String[] {"a", "ab", "n"}) {
+            assertEquals(tag, plain.getAllValuesIn(tag).asList(), 
+                    indexed.getAllValuesIn(tag).asList());
+        }
+    }
+    
+    @Test
+    public void testIndex() throws Exception {
+        XmlSlicer xml = XmlSlicer.cut(FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/simple.xml"))).index();
+        assertSame(xml, xml.index());
+        XmlIndex index = xml.getIndex();
+        assertEquals(15, index.size());
+        assertEquals("xml", index.getName(0));
+        assertEquals(-1, index.getParent(0));
+        assertEquals("tag3", index.getName(5));
+        assertEquals(3, index.getDepth(5));
+        assertEquals(2, index.getParent(5));
+        assertEquals("6", xml.get("tagB").get("innerTag1").get("tag3")
+                .toString());
+        assertSame(index, xml.get("tagB").getIndex());
+        long start = System.nanoTime();
+        for (int i = 0; i < 100000; i++) {
+            xml.get("tagB").get("innerTag2").get("tag3");
+        }
+        log.debug("100000 indexed lookups took: " + (System.nanoTime() - start)
+                / 1000000000.0 + " sec ");
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlBytes;
+import com.googlecode.xmlzen.utils.XmlUtils;
+
+/**
+ * Unit tests for {@link XmlScanner}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlScannerTest {
+
+    private static final Log log = LogFactory.getLog(XmlScannerTest.class);
+
+    @Test
+    public void testEvents() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!-- not -->"
+                + "<r a=\"1\" b='x y'><c>text</c><d e=\"2\"/>"
+                + "<![CDATA[raw]]><u>open</r>";
+        assertEquals("text <?xml version=\"1.0\"?><!-- not --> 0|"
+                + "start r 0|attr a=1 0|attr b=x y 0|start c 1|"
+                + "text text 2|end c 1|start d 1|attr e=2 1|end d 1|"
+                + "text <![CDATA[raw]]> 1|start u 1|text open 2|end u 1|"
+                + "end r 0|", 
+                events(XmlSlicer.cut(xml)));
+        Charset utf8 = Charset.forName("UTF-8");
+        assertEquals(events(XmlSlicer.cut(xml)), events(XmlSlicer.cut(
+                new XmlBytes(ByteBuffer.wrap(xml.getBytes(utf8)), utf8))));
+        assertEquals("start c 0|text text 1|end c 0|", 
+                events(XmlSlicer.cut(xml).getTag("c")));
+        assertEquals("text a < b 0|start x 0|end x 0|", 
+                events(XmlSlicer.cut("a < b<x></y></x>")));
+        assertEquals("", events(XmlSlicer.cut((String) null)));
+    }
+
+    @Test
+    public void testSameTagsAsSlicer() throws Exception {
+        //tags in comments are tags, just like for getTags and the index
+        String xml = "<a><!-- <b/> --></a>";
+        assertEquals("start a 0|text <!--  1|start b 1|end b 1|"
+                + "text  --> 1|end a 0|", events(XmlSlicer.cut(xml)));
+        assertEquals(1, XmlSlicer.cut(xml).getTags("b").size());
+        assertEquals(1, XmlSlicer.cut(xml).index().count("b"));
+        //a tag needs a name
+        assertEquals("text <></> 0|", events(XmlSlicer.cut("<></>")));
+        assertEquals("start a 0|text <> 1|end a 0|", 
+                events(XmlSlicer.cut("<a><></a>")));
+        assertEquals(0, XmlSlicer.cut("<a><></a>").getTags("").size());
+        assertEquals(0, XmlSlicer.cut("<a><></a>").index().count(""));
+    }
+
+    @Test
+    public void testRegionEndsInTag() throws Exception {
+        //a cut tag is reported once, as a tag
+        assertEquals("start a 0|text t 1|start b 1|attr x=1 1|end b 1|"
+                + "end a 0|", events(XmlSlicer.cut("<a>t<b x=\"1\" y=\"2")));
+        assertEquals("start a 0|start b 1|end b 1|end a 0|", 
+                events(XmlSlicer.cut("<a><b x=\"1>\"<c/></b></a>")
+                        .subSequence(0, 10)));
+        //a cut name is text, just like other cut markup
+        assertEquals("start a 0|text <bo 1|end a 0|", 
+                events(XmlSlicer.cut("<a><bo")));
+        assertEquals("start a 0|text <!-- x 1|end a 0|", 
+                events(XmlSlicer.cut("<a><!-- x")));
+    }
+
+    @Test
+    public void testBalancedTags() throws Exception {
+        String html = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8");
+        final int[] counts = new int[4];
+        XmlSlicer.cut(html).scan(new ScanHandler() {
+            @Override
+            public void startTag(final CharSequence xml, final int start, 
+                    final int end, final int depth) {
+                counts[0]++;
+                if (isName(xml, start, end, "div")) {
+                    counts[2]++;
+                }
+            }
+            @Override
+            public void endTag(final CharSequence xml, final int start, 
+                    final int end, final int depth) {
+                counts[1]++;
+                if (isName(xml, start, end, "div")) {
+                    counts[3]++;
+                }
+            }
+        });
+        log.debug("Tags in complex.html: " + counts[0]);
+        assertEquals(counts[0], counts[1]);
+        assertEquals(counts[2], counts[3]);
+        //including "<div" in comments and scripts, same as the index
+        XmlIndex index = XmlSlicer.cut(html).index().getIndex();
+        assertEquals(index.size(), counts[0]);
+        int divs = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if ("div".equals(index.getName(i))) {
+                divs++;
+            }
+        }
+        assertEquals(divs, counts[2]);
+        assertTrue(counts[2] > 250);
+    }
+
+    private static boolean isName(final CharSequence xml, final int start,
+            final int end, final String name) {
+        return name.equals(XmlUtils.substring(xml, start, end));
+    }
+
+    private static String events(final XmlSlicer slicer) {
+        final StringBuilder events = new StringBuilder();
+        slicer.scan(new ScanHandler() {
+            @Override
+            public void startTag(final CharSequence xml, final int start, 
+                    final int end, final int depth) {
+                events.append("start ").append(xml, start, end)
+                        .append(' ').append(depth).append('|');
+            }
+            @Override
+            public void attribute(final CharSequence xml, 
+                    final int nameStart, final int nameEnd, 
+                    final int valueStart, final int valueEnd, 
+                    final int depth) {
+                events.append("attr ").append(xml, nameStart, nameEnd)
+                        .append('=').append(xml, valueStart, valueEnd)
+                        .append(' ').append(depth).append('|');
+            }
+            @Override
+            public void text(final CharSequence xml, final int start, 
+                    final int end, final int depth) {
+                events.append("text ").append(xml, start, end)
+                        .append(' ').append(depth).append('|');
+            }
+            @Override
+            public void endTag(final CharSequence xml, final int start, 
+                    final int end, final int depth) {
+                events.append("end ").append(xml, start, end)
+                        .append(' ').append(depth).append('|');
+            }
+        });
+        return events.toString();
+    }
+}
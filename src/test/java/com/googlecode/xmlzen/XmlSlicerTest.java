@@ -17,17 +17,30 @@
 package com.googlecode.xmlzen;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 
 import com.googlecode.xmlzen.utils.FileUtils;
+import com.googlecode.xmlzen.utils.XmlUtils;
 
 /**
  * Unit tests for {@link XmlSlicer} and {@link XmlSlicerList}
@@ -100,6 +113,290 @@ public class XmlSlicerTest {
                 .startsWith("http://wt.o.nytimes.com/dcsym57yw10000s1s8g0boozt_9t1x/njs.gif"));
     }
     
+    @Test
+    public void testSliceIsView() throws Exception {
+        String xml = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/simple.xml"));
+        XmlSlicer inner = XmlSlicer.cut(xml).get("tagB").get("innerTag2");
+        assertEquals(XmlUtils.getTagValue(XmlUtils.getTagValue(xml, "tagB"), 
+                "innerTag2"), inner.toString());
+        assertEquals(inner.toString().length(), inner.length());
+        assertEquals('<', inner.charAt(0));
+        assertEquals("<tag1>", inner.subSequence(0, 6).toString());
+        assertEquals("7", inner.subSequence(0, 15).get("tag1").toString());
+        assertEquals(null, inner.get("tagA").toString());
+        assertEquals(null, XmlSlicer.cut("<a><b/></a>").get("b").toString());
+        assertEquals("<b/>", 
+                XmlSlicer.cut("<a><b/></a>").getTag("b").toString());
+    }
+    
+    @Test
+    public void testCutPath() throws Exception {
+        File simple = FileUtils.getClassPathFile("xmls/simple.xml");
+        assertEquals("6", XmlSlicer.cut(simple.toPath(), "UTF-8")
+                .get("tagB").get("innerTag1").get("tag3").toString());
+        File utf8 = FileUtils.getClassPathFile("xmls/utf8.xml");
+        assertEquals(XmlSlicer.cut(utf8, "UTF-8").get("utf8").toString(), 
+                XmlSlicer.cut(utf8.toPath(), "UTF-8").get("utf8").toString());
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        XmlSlicer mapped = XmlSlicer.cut(html.toPath(), "UTF-8");
+        XmlSlicer read = XmlSlicer.cut(html, "UTF-8");
+        assertEquals(read.getTagAttribute("form", "action"), 
+                mapped.getTagAttribute("form", "action"));
+        assertEquals(read.getTags("div").asList(), 
+                mapped.getTags("div").asList());
+        assertEquals(read.getTags("div").get(1).getTag("img").attribute("src"),
+                mapped.getTags("div").get(1).getTag("img").attribute("src"));
+        File tmp = File.createTempFile("xmlzen", ".xml");
+        tmp.deleteOnExit();
+        Files.write(tmp.toPath(), "<ウェブ id='ウ'>žąsis</ウェブ>"
+                .getBytes("UTF-8"));
+        XmlSlicer unicode = XmlSlicer.cut(tmp.toPath(), "UTF-8");
+        assertEquals("žąsis", unicode.get("ウェブ").toString());
+        assertEquals("ウ", unicode.getTagAttribute("ウェブ", "id"));
+        //not ASCII compatible, falls back to reading
+        Files.write(tmp.toPath(), "<a>b</a>".getBytes("UTF-16"));
+        assertEquals("b", XmlSlicer.cut(tmp.toPath(), "UTF-16").value());
+    }
+    
+    @Test
+    public void testCutBytes() throws Exception {
+        String xml = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8")
+                + "<ąžuolas kodas=\"ė\" x = 'y'> šaknys </ąžuolas>";
+        for (String charset : new String[] {"UTF-8", "ISO-8859-13"}) {
+            //chars that charset lacks are replaced in both
+            XmlSlicer string = XmlSlicer.cut(
+                    new String(xml.getBytes(charset), charset));
+            XmlSlicer bytes = XmlSlicer.cut(xml.getBytes(charset), charset);
+            assertEquals(string.getTags("div").asList(), 
+                    bytes.getTags("div").asList());
+            assertEquals(string.getAllValuesIn("a").asList(), 
+                    bytes.getAllValuesIn("a").asList());
+            assertEquals(string.getTagAttribute("form", "action"), 
+                    bytes.getTagAttribute("form", "action"));
+            assertEquals(string.get("body").value(), 
+                    bytes.get("body").value());
+            assertEquals("ė", bytes.getTag("ąžuolas").attribute("kodas"));
+            assertEquals(string.getTag("ąžuolas").attributes(), 
+                    bytes.getTag("ąžuolas").attributes());
+            assertEquals("šaknys", bytes.get("ąžuolas").toString());
+        }
+        //CharSequence methods of a byte slice see decoded characters
+        for (String charset : new String[] {"UTF-8", "ISO-8859-13"}) {
+            XmlSlicer goose = XmlSlicer.cut("<a>žąsis 𝄞</a>".getBytes(
+                    charset), charset).get("a");
+            String expected = "UTF-8".equals(charset) ? "žąsis 𝄞" 
+                    : "žąsis ?";
+            assertEquals(expected, goose.toString());
+            assertEquals(expected.length(), goose.length());
+            assertEquals('ž', goose.charAt(0));
+            assertEquals('s', goose.charAt(2));
+            assertEquals(expected, new StringBuilder().append(goose)
+                    .toString());
+            assertTrue(expected.contentEquals(goose));
+            assertTrue(Pattern.matches("žą\\w+ .+", goose));
+            assertEquals("ąs", goose.subSequence(1, 3).toString());
+            assertEquals("ą", goose.subSequence(1, 3).subSequence(0, 1)
+                    .toString());
+            int[] bounds = new int[4];
+            XmlSlicer record = XmlSlicer.cut(("<r>ąžuolas<a>ė</a></r>")
+                    .getBytes(charset), charset).get("r");
+            assertEquals(1, record.extract(XmlSlicer.fields("a"), bounds));
+            assertEquals("<a>ė</a>", record.subSequence(bounds[0], 
+                    bounds[3]).toString());
+            assertEquals("ė", record.subSequence(bounds[1], bounds[2])
+                    .toString());
+            assertEquals("ė", record.extract("a")[0].toString());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap("..<a>b</a>".getBytes("UTF-16"));
+        buffer.position(4);
+        assertEquals("b", XmlSlicer.cut(buffer, "UTF-16").value());
+    }
+    
+    @Test
+    public void testIterate() throws Exception {
+        String xml = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/birds.xml"));
+        XmlSlicer nest = XmlSlicer.cut(xml);
+        List<String> birds = new ArrayList<String>();
+        for (XmlSlicer bird : nest.iterateValuesIn("bird")) {
+            birds.add(bird.toString());
+        }
+        assertEquals(nest.getAllValuesIn("bird").asList(), birds);
+        Iterator<XmlSlicer> tags = nest.iterateTags("bird").iterator();
+        assertEquals("<bird>crow</bird>", tags.next().toString());
+        assertTrue(tags.hasNext());
+        assertTrue(tags.hasNext());
+        assertEquals("<bird>tweety</bird>", tags.next().toString());
+        assertFalse(nest.iterateTags("cow").iterator().hasNext());
+    }
+    
+    @Test
+    public void testTypedValues() throws Exception {
+        XmlSlicer feed = XmlSlicer.cut("<feed><item id=\"7\" big='-9000000000'"
+                + " rate=\"1e-3\" ok=\"TRUE\"><price> 12.50 </price>"
+                + "<qty>3</qty></item><item id=\"8\"><price>-0.1</price>"
+                + "<qty>-2</qty></item></feed>");
+        XmlSlicer item = feed.getTag("item");
+        assertEquals(7, item.intAttribute("id"));
+        assertEquals(-9000000000L, item.longAttribute("big"));
+        assertEquals(0.001, item.doubleAttribute("rate"), 0);
+        assertTrue(item.booleanAttribute("ok"));
+        assertFalse(item.booleanAttribute("missing"));
+        assertEquals(12.5, item.get("price").asDouble(), 0);
+        assertTrue(Arrays.equals(new double[] {12.5, -0.1}, 
+                feed.getAllValuesIn("price").asDoubleArray()));
+        assertTrue(Arrays.equals(new int[] {3, -2}, 
+                feed.getAllValuesIn("qty").asIntArray()));
+        assertTrue(Arrays.equals(new long[] {3, -2}, 
+                feed.getAllValuesIn("qty").asLongArray()));
+        try {
+            item.intAttribute("big");
+            fail("Should not fit into int");
+        } catch (NumberFormatException e) {
+            log.debug("Expected", e);
+        }
+        try {
+            item.get("missing").asInt();
+            fail("Should not parse missing value");
+        } catch (NumberFormatException e) {
+            log.debug("Expected", e);
+        }
+    }
+    
+    @Test
+    public void testStreams() throws Exception {
+        StringBuilder xml = new StringBuilder("<feed>");
+        for (int i = 0; i < 5000; i++) {
+            xml.append("<item id=\"").append(i).append("\"><qty>").append(i)
+                    .append("</qty><note>n</note></item><empty/>\n");
+        }
+        xml.append("</feed>");
+        XmlSlicer feed = XmlSlicer.cut(xml.toString());
+        assertNotNull(feed.streamTags("item").spliterator().trySplit());
+        assertEquals(feed.getTags("item").asList(), feed.streamTags("item")
+                .parallel().map(Object::toString)
+                .collect(Collectors.toList()));
+        assertEquals(feed.getAllValuesIn("qty").asList(), 
+                feed.index().streamValues("qty").parallel()
+                .map(Object::toString).collect(Collectors.toList()));
+        assertEquals(5000, feed.streamValues("empty").parallel().count());
+        assertEquals(4999L * 5000 / 2, feed.streamValues("qty").parallel()
+                .mapToLong(XmlSlicer::asLong).sum());
+        assertEquals(2, XmlSlicer.cut("<a><b>1</b><b>2</b></a>").get("a")
+                .streamValues("b").count());
+        assertEquals(0, XmlSlicer.cut((String) null).streamTags("b").count());
+        StringBuilder nested = new StringBuilder("<tree>");
+        for (int i = 0; i < 3000; i++) {
+            nested.append("<node id=\"").append(i).append("\"><node>")
+                    .append(i).append("</node><!-- <node>c</node> -->")
+                    .append("</node>\n");
+        }
+        nested.append("</tree>");
+        for (XmlSlicer tree : new XmlSlicer[] {
+                XmlSlicer.cut(nested.toString()),
+                XmlSlicer.cut(nested.toString()).index()}) {
+            assertEquals(tree.getTags("node").asList(), tree
+                    .streamTags("node").parallel().map(Object::toString)
+                    .collect(Collectors.toList()));
+            assertEquals(3000, tree.streamValues("node").parallel().count());
+            //halves of a split are the sequential results, split in two
+            Spliterator<XmlSlicer> suffix = tree.streamTags("node")
+                    .spliterator();
+            Spliterator<XmlSlicer> prefix = suffix.trySplit();
+            final List<String> halves = new ArrayList<String>();
+            prefix.forEachRemaining(node -> halves.add(node.toString()));
+            assertTrue(halves.size() > 0 && halves.size() < 3000);
+            suffix.forEachRemaining(node -> halves.add(node.toString()));
+            assertEquals(tree.getTags("node").asList(), halves);
+            assertEquals("0", tree.streamTags("node").parallel().findFirst()
+                    .get().attribute("id"));
+        }
+        //runs in the pool it's submitted to
+        final XmlSlicer tree = XmlSlicer.cut(nested.toString());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertEquals(tree.getTags("node").asList(), pool.submit(
+                    () -> tree.streamTags("node").parallel()
+                    .map(Object::toString).collect(Collectors.toList()))
+                    .get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testCount() throws Exception {
+        String html = FileUtils.readFile(
+                FileUtils.getClassPathFile("xmls/complex.html"), "UTF-8");
+        XmlSlicer slicer = XmlSlicer.cut(html);
+        for (String tag : new String[] {"div", "a", "script", "missing"}) {
+            assertEquals(slicer.getTags(tag).size(), slicer.count(tag));
+            assertEquals(slicer.getTags(tag).size(), 
+                    slicer.index().count(tag));
+            assertEquals(!slicer.getTags(tag).isEmpty(), slicer.exists(tag));
+        }
+        String status = "<status><check state=\"OK\"/>"
+                + "<check id='2' state='FAILED'>disk</check>"
+                + "<check state=\"FAILED \"/><checks state=\"FAILED\"/>"
+                + "<check state=\"ąžuolas\"/><check/></status>";
+        assertEquals(5, XmlSlicer.cut(status).count("check"));
+        assertEquals(1, XmlSlicer.cut(status).countWhere("check", "state", 
+                "FAILED"));
+        assertEquals(1, XmlSlicer.cut(status).countWhere("check", "state", 
+                "ąžuolas"));
+        assertEquals(1, XmlSlicer.cut(status.getBytes("UTF-8"), "UTF-8")
+                .countWhere("check", "state", "ąžuolas"));
+        assertEquals(0, XmlSlicer.cut(status).countWhere("check", "id", 
+                "FAILED"));
+        assertFalse(XmlSlicer.cut(status).exists("state"));
+        assertFalse(XmlSlicer.cut((String) null).exists("check"));
+        assertEquals(0, XmlSlicer.cut((String) null).count("check"));
+        assertEquals(0, XmlSlicer.cut((String) null).countWhere("a", "b", 
+                "c"));
+    }
+    
+    @Test
+    public void testFilteredTags() throws Exception {
+        String xml = "<orders><order id=\"1\" status=\"open\">a</order>"
+                + "<order id=\"2\" status=\"closed\">b</order>"
+                + "<order status='open-late' id='3'>c</order>"
+                + "<order id=\"4\" status=\"open\"/>"
+                + "<order id=\"5\"><item status=\"open\"/></order>"
+                + "</orders>";
+        XmlSlicer orders = XmlSlicer.cut(xml);
+        assertEquals(Arrays.asList("<order id=\"1\" status=\"open\">a"
+                + "</order>", "<order id=\"4\" status=\"open\"/>"), 
+                orders.getTags("order", "status", "open").asList());
+        assertEquals(orders.getTags("order", "status", "open").asList(), 
+                orders.index().getTags("order", "status", "open").asList());
+        assertEquals(Arrays.asList("a", null), 
+                orders.getAllValuesIn("order", "status", "open").asList());
+        assertEquals(3, orders.getTags("order", 
+                TagFilter.attributeStartsWith("status", "open")).size());
+        assertEquals(Arrays.asList("c"), orders.getAllValuesIn("order", 
+                TagFilter.attributeStartsWith("id", "3")).asList());
+        assertEquals(2, orders.count("order", new TagFilter() {
+            @Override
+            public boolean accept(CharSequence xml, int start, int end) {
+                return xml.charAt(end - 2) == '/' 
+                        || xml.charAt(end) == '<';
+            }
+        }));
+        assertEquals(2, orders.countWhere("order", "status", "open"));
+        assertTrue(orders.getTags("order", "status", "none").isEmpty());
+        //a shared filter encodes it's value for every source XML
+        TagFilter goose = TagFilter.attributeEquals("name", "žąsis");
+        String birds = "<bird name=\"žąsis\"/><bird name=\"antis\"/>";
+        assertEquals(1, XmlSlicer.cut(birds).count("bird", goose));
+        assertEquals(1, XmlSlicer.cut(birds.getBytes("UTF-8"), "UTF-8")
+                .count("bird", goose));
+        assertEquals(1, XmlSlicer.cut(birds.getBytes("ISO-8859-13"), 
+                "ISO-8859-13").count("bird", goose));
+        assertEquals(1, XmlSlicer.cut(birds).count("bird", goose));
+    }
+    
     @Test
     public void testValue() throws Exception {
         String val = XmlSlicer.cut("<xml>123</xml>").value();
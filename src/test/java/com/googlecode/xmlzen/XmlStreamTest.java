@@ -0,0 +1,114 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.googlecode.xmlzen.utils.FileUtils;
+
+/**
+ * Unit tests for {@link XmlStream}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlStreamTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    @Test
+    public void testStreamMatchesGetTags() throws Exception {
+        File html = FileUtils.getClassPathFile("xmls/complex.html");
+        List<String> expected = XmlSlicer.cut(html, "UTF-8").getTags("div")
+                .asList();
+        //tiny buffer makes tags span many reads
+        XmlStream divs = new XmlStream(Channels.newChannel(
+                new FileInputStream(html)), "div", UTF8, 16);
+        List<String> actual = new ArrayList<String>();
+        for (XmlSlicer div : divs) {
+            actual.add(div.toString());
+        }
+        divs.close();
+        assertEquals(expected, actual);
+    }
+    
+    @Test
+    public void testStream() throws Exception {
+        String xml = "<birds><bird id='1'>ąžuolas</bird><birdie/>" 
+                + "<bird><bird>x</bird></bird><bird/></birds>";
+        XmlStream birds = XmlSlicer.stream(
+                new ByteArrayInputStream(xml.getBytes(UTF8)), "bird", "UTF-8");
+        assertEquals("ąžuolas", birds.next().get("bird").toString());
+        assertEquals(xml.substring(0, xml.indexOf("<birdie")).getBytes(UTF8)
+                .length, birds.getPosition());
+        assertEquals("<bird><bird>x</bird></bird>", birds.next().toString());
+        assertEquals("<bird/>", birds.next().toString());
+        assertFalse(birds.hasNext());
+    }
+    
+    @Test(timeout = 10000)
+    public void testShortReads() throws Exception {
+        final String[] chunks = {"<r><a>1", "</a><a>2</a>", "<a>3</a>"};
+        final CountDownLatch done = new CountDownLatch(1);
+        //returns a chunk per read, like a pipe, then blocks
+        InputStream pipe = new InputStream() {
+            private int chunk;
+            @Override
+            public int read() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public int read(final byte[] b, final int off, final int len) 
+                    throws IOException {
+                if (chunk == chunks.length) {
+                    try {
+                        done.await();
+                    } catch (final InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return -1;
+                }
+                byte[] bytes = chunks[chunk++].getBytes(UTF8);
+                System.arraycopy(bytes, 0, b, off, bytes.length);
+                return bytes.length;
+            }
+        };
+        XmlStream tags = XmlSlicer.stream(pipe, "a", "UTF-8");
+        try {
+            assertEquals("1", tags.next().value());
+            assertEquals("2", tags.next().value());
+            assertEquals("3", tags.next().value());
+        } finally {
+            done.countDown();
+        }
+        assertFalse(tags.hasNext());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlTail}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlTailTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testPoll() throws Exception {
+        Path path = Files.createTempFile("xmlzen", ".xml");
+        Files.delete(path);
+        XmlTail events = XmlSlicer.follow(path, "event", "UTF-8");
+        assertTrue(events.poll().isEmpty());
+        append(path, "<log>\n<event id=\"1\">a</event>\n<event id=\"2\">");
+        assertEquals("1", events.poll().get(0).attribute("id"));
+        assertTrue(events.poll().isEmpty());
+        append(path, "ą</event>\n<event id=\"3\"/><even");
+        XmlSlicerList polled = events.poll();
+        assertEquals(2, polled.size());
+        assertEquals("ą", polled.get(0).get("event").toString());
+        assertEquals("3", polled.get(1).attribute("id"));
+        long position = events.getCursor().getPosition();
+        append(path, "t id=\"4\">d</event>");
+        //restarted monitor continues from the saved position
+        XmlTail restarted = XmlSlicer.follow(path, 
+                new XmlCursor("event", position), "UTF-8");
+        assertEquals("4", restarted.poll().get(0).attribute("id"));
+        assertEquals("4", events.poll().get(0).attribute("id"));
+        assertEquals(Files.size(path), events.getCursor().getPosition());
+        //rotated file is followed from the start
+        Files.write(path, "<event id=\"5\"/>".getBytes(UTF8));
+        assertEquals("5", events.poll().get(0).attribute("id"));
+        Files.delete(path);
+    }
+
+    private static void append(final Path path, final String xml) 
+            throws Exception {
+        Files.write(path, xml.getBytes(UTF8), StandardOpenOption.CREATE, 
+                StandardOpenOption.APPEND);
+    }
+}
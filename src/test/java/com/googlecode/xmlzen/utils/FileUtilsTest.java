@@ -16,6 +16,7 @@
  */
 package com.googlecode.xmlzen.utils;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -24,11 +25,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 
+import com.googlecode.xmlzen.XmlSlicer;
 import com.googlecode.xmlzen.XmlZenException;
 
 /**
@@ -73,6 +76,77 @@ public class FileUtilsTest {
 		log.debug("note.xml: " + note);
 	}
 	
+	@Test
+	public void testReadMultiByteFile() throws Exception {
+	    StringBuilder text = new StringBuilder("<a>");
+	    for (int i = 0; i < 300000; i++) {
+	        text.append(i % 7 == 0 ? "ąžuolas ウェブ " : "oak ");
+	    }
+	    String xml = text.append("</a>").toString();
+	    File tmp = File.createTempFile("xmlzen", ".xml");
+	    tmp.deleteOnExit();
+	    Files.write(tmp.toPath(), xml.getBytes("UTF-8"));
+	    long start = System.nanoTime();
+	    assertEquals(xml, FileUtils.readFile(tmp, "UTF-8"));
+	    log.debug("Reading " + tmp.length() + " bytes took: " 
+	            + (System.nanoTime() - start) / 1000000000.0 + " sec ");
+	    start = System.nanoTime();
+	    new String(Files.readAllBytes(tmp.toPath()), "UTF-8");
+	    log.debug("Files.readAllBytes and decode took: " 
+	            + (System.nanoTime() - start) / 1000000000.0 + " sec ");
+	    Files.write(tmp.toPath(), "<a>ascii</a>".getBytes("US-ASCII"));
+	    assertEquals("<a>ascii</a>", FileUtils.readFile(tmp, "US-ASCII"));
+	    Files.write(tmp.toPath(), "<a>ž</a>".getBytes("UTF-16"));
+	    assertEquals("<a>ž</a>", FileUtils.readFile(tmp, "UTF-16"));
+	}
+	
+	@Test
+	public void testReadNonAsciiFile() throws Exception {
+	    File tmp = File.createTempFile("xmlzen", ".xml");
+	    tmp.deleteOnExit();
+	    //non-ASCII in the last byte, 4 byte UTF-8 and malformed bytes
+	    String[] xmls = {"<a>ascii</a>ž", "<a>\uD83C\uDF33 medis</a>", ""};
+	    for (String xml : xmls) {
+	        Files.write(tmp.toPath(), xml.getBytes("UTF-8"));
+	        assertEquals(xml, FileUtils.readFile(tmp, "UTF-8"));
+	    }
+	    byte[] malformed = {'<', 'a', '>', (byte) 0xC5, '<', '/', 'a', '>', 
+	            (byte) 0xF0, (byte) 0x9F};
+	    Files.write(tmp.toPath(), malformed);
+	    assertEquals(new String(malformed, "UTF-8"), 
+	            FileUtils.readFile(tmp, "UTF-8"));
+	    Files.write(tmp.toPath(), "<a>žąsis</a>".getBytes("windows-1257"));
+	    assertEquals("<a>žąsis</a>", FileUtils.readFile(tmp, "windows-1257"));
+	    Files.write(tmp.toPath(), "<a>ウェブ</a>".getBytes("Shift_JIS"));
+	    assertEquals("<a>ウェブ</a>", FileUtils.readFile(tmp, "Shift_JIS"));
+	}
+	
+	@Test
+	public void testReadXmlFile() throws Exception {
+	    File tmp = File.createTempFile("xmlzen", ".xml");
+	    tmp.deleteOnExit();
+	    String xml = "<a>žąsis</a>";
+	    String declared = "<?xml version=\"1.0\" encoding = 'windows-1257'?>" 
+	        + xml;
+	    Files.write(tmp.toPath(), declared.getBytes("windows-1257"));
+	    assertEquals(declared, FileUtils.readXmlFile(tmp));
+	    assertEquals("windows-1257", XmlUtils.guessCharset(tmp));
+	    Files.write(tmp.toPath(), ("\uFEFF" + xml).getBytes("UTF-8"));
+	    assertEquals(xml, FileUtils.readXmlFile(tmp));
+	    assertEquals(xml, XmlSlicer.cut(tmp).toString());
+	    for (String charset : new String[] {"UTF-16", "UTF-32"}) {
+	        Files.write(tmp.toPath(), xml.getBytes(charset));
+	        assertEquals(charset, xml, FileUtils.readXmlFile(tmp));
+	    }
+	    for (String charset : new String[] {"UTF-16LE", "UTF-16BE", 
+	            "UTF-32LE", "UTF-32BE"}) {
+	        String utf = "<?xml version=\"1.0\"?>" + xml;
+	        Files.write(tmp.toPath(), utf.getBytes(charset));
+	        assertEquals(charset, utf, FileUtils.readXmlFile(tmp));
+	    }
+	    assertEquals(null, FileUtils.readXmlFile(new File("/dev/null")));
+	}
+	
 	@Test
 	public void testClose() throws Exception {
 		FileUtils.close(null);
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009 Tomas Varaneckas 
+ * http://www.varaneckas.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.xmlzen.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlBytes}
+ * 
+ * @author Tomas Varaneckas &lt;tomas.varaneckas@gmail.com&gt;
+ * @version $Id$
+ */
+public class XmlBytesTest {
+
+    private static final Log log = LogFactory.getLog(XmlBytesTest.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    @Test
+    public void testIsSupported() throws Exception {
+        assertTrue(XmlBytes.isSupported(UTF8));
+        assertTrue(XmlBytes.isSupported(Charset.forName("ISO-8859-1")));
+        assertTrue(XmlBytes.isSupported(Charset.forName("windows-1257")));
+        assertFalse(XmlBytes.isSupported(Charset.forName("UTF-16")));
+    }
+    
+    @Test
+    public void testWordScan() throws Exception {
+        Random random = new Random(42);
+        byte[] data = new byte[4099];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) "<>ab\u00e0 ".charAt(random.nextInt(6));
+        }
+        XmlBytes words = new XmlBytes(ByteBuffer.wrap(data), UTF8);
+        XmlBytes.setDefaultWordScan(false);
+        XmlBytes bytes = new XmlBytes(ByteBuffer.wrap(data), UTF8);
+        XmlBytes.setDefaultWordScan(true);
+        for (char c : new char[] {'<', '>', 'a', '\u00e0', 'z'}) {
+            for (int from = 0; from < 64; from++) {
+                int to = data.length - from * 3;
+                assertEquals(bytes.indexOf(c, from, to), 
+                        words.indexOf(c, from, to));
+                assertEquals(bytes.subSequence(from, to).indexOf(c, 1, 40), 
+                        words.subSequence(from, to).indexOf(c, 1, 40));
+            }
+        }
+        //direct buffers, like mapped files, work the same way
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        assertEquals(bytes.indexOf('z', 0, data.length), 
+                new XmlBytes(direct, UTF8).indexOf('z', 0, data.length));
+        byte[] big = new byte[1 << 24];
+        Arrays.fill(big, (byte) 'x');
+        big[big.length - 1] = '<';
+        for (boolean wordScan : new boolean[] {false, true, false, true}) {
+            XmlBytes.setDefaultWordScan(wordScan);
+            XmlBytes scanned = new XmlBytes(ByteBuffer.wrap(big), UTF8);
+            long start = System.nanoTime();
+            assertEquals(big.length - 1, scanned.indexOf('<', 0, big.length));
+            log.debug("Scanning 16 MB (word scan: " + wordScan + ") took: " 
+                    + (System.nanoTime() - start) / 1000000000.0 + " sec ");
+        }
+        XmlBytes.setDefaultWordScan(true);
+    }
+    
+    @Test
+    public void testDecode() throws Exception {
+        XmlBytes bytes = new XmlBytes(
+                ByteBuffer.wrap("<a>ąžuolas</a>".getBytes(UTF8)), UTF8);
+        int[] bounds = new int[4];
+        assertTrue(XmlUtils.findTag(bytes, "a", 0, bytes.length(), bounds));
+        assertEquals("ąžuolas", XmlUtils.substring(bytes, 
+                bounds[XmlUtils.VALUE_START], bounds[XmlUtils.VALUE_END]));
+        assertEquals(bytes.length(), bounds[XmlUtils.TAG_END]);
+        assertEquals("<a>ąžuolas</a>", bytes.toString());
+        assertEquals("ž", bytes.subSequence(5, 7).toString());
+        assertEquals(3, bytes.indexOf(bytes.encode("ąž"), 0, bytes.length()));
+    }
+}
@@ -16,13 +16,17 @@
  */
 package com.googlecode.xmlzen.utils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Random;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -87,6 +91,29 @@ public class XmlUtilsTest {
         assertEquals(null, tag);
     }
     
+    @Test
+    public void testNestedTags() throws Exception {
+        assertEquals("<ab>x</ab>", XmlUtils.getTagValue("<a><ab>x</ab></a>", "a"));
+        assertEquals("<n/><n>1</n>", 
+                XmlUtils.getTagValue("<n><n/><n>1</n></n><n>2</n>", "n"));
+        assertEquals("1", XmlUtils.getTagValue("<n\n id='1'>1</n>", "n"));
+        assertEquals(null, XmlUtils.getTagValue("<n><n>1</n>", "n"));
+        final int depth = 20000;
+        final StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            deep.append("<node>");
+        }
+        deep.append("leaf");
+        for (int i = 0; i < depth; i++) {
+            deep.append("</node>");
+        }
+        long start = System.nanoTime();
+        String value = XmlUtils.getTagValue(deep.toString(), "node");
+        log.debug("Nested tag lookup took: " + (System.nanoTime() - start)
+                / 1000000000.0 + " sec ");
+        assertEquals(deep.length() - "<node></node>".length(), value.length());
+    }
+    
     @Test
     public void ultimateTest() throws Exception {
         String first = XmlUtils.getTagValue(xml, "forest");
@@ -131,6 +158,81 @@ public class XmlUtilsTest {
                 / 1000000000.0 + " sec ");
     }
 
+    @Test
+    public void testScanAttributes() {
+        String item = "<item id=\"7\"\n  sku = 'A-1' pid=\"9\" flag "
+                + "title=\"a > b\" qty=3/><id id=\"x\"/>";
+        int[] offsets = new int[8];
+        assertEquals(6, XmlUtils.scanAttributes(item, 0, item.length(), 
+                offsets));
+        assertEquals("id", item.substring(
+                offsets[XmlUtils.ATTRIBUTE_NAME_START], 
+                offsets[XmlUtils.ATTRIBUTE_NAME_END]));
+        assertEquals("A-1", item.substring(
+                offsets[4 + XmlUtils.ATTRIBUTE_VALUE_START], 
+                offsets[4 + XmlUtils.ATTRIBUTE_VALUE_END]));
+        assertEquals("7", XmlUtils.getAttribute(item, "item", "id"));
+        assertEquals("9", XmlUtils.getAttribute(item, "item", "pid"));
+        assertEquals("A-1", XmlUtils.getAttribute(item, "item", "sku"));
+        assertEquals("a > b", XmlUtils.getAttribute(item, "item", "title"));
+        assertEquals("3", XmlUtils.getAttribute(item, "item", "qty"));
+        assertEquals("", XmlUtils.getAttribute(item, "item", "flag"));
+        assertNull(XmlUtils.getAttribute(item, "item", "missing"));
+        assertEquals("x", XmlUtils.getAttribute(item, "id", "id"));
+        assertEquals("{id=7, sku=A-1, pid=9, flag=, title=a > b, qty=3}", 
+                XmlUtils.getFirstTagAttributes(item, 0, item.length())
+                    .toString());
+        assertArrayEquals(new String[] {"3", "7", null}, 
+                XmlUtils.getFirstTagAttributeValues(item, 0, item.length(), 
+                        "qty", "id", "missing"));
+    }
+    
+    @Test
+    public void testParseNumbers() {
+        String[] longs = {"0", "-0", "+15", " 42\n", "9223372036854775807", 
+                "-9223372036854775808"};
+        for (String value : longs) {
+            assertEquals(Long.parseLong(value.trim()), 
+                    XmlUtils.parseLong(value, 0, value.length()));
+        }
+        String[] wrong = {"", " ", "-", "1a", "9223372036854775808", "1.0"};
+        for (String value : wrong) {
+            try {
+                XmlUtils.parseLong(value, 0, value.length());
+                fail("Should not parse: " + value);
+            } catch (NumberFormatException e) {
+                log.debug("Expected: " + e.getMessage());
+            }
+        }
+        String[] doubles = {"0", "-0", "0.1", "-12.50", ".5", "5.", "1e10", 
+                "1.5E-7", "123456789012345", "1234567890123456789", "1e-300",
+                "NaN", "-Infinity", "4.9e-324", "0x1p3", "1.0d", "+7e+2"};
+        for (String value : doubles) {
+            assertEquals(value, Double.parseDouble(value), 
+                    XmlUtils.parseDouble(value, 0, value.length()), 0);
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            String value = Double.toString(random.nextDouble() 
+                    * Math.pow(10, random.nextInt(30) - 15));
+            if (i % 2 == 0) {
+                value = String.format("%.2f", random.nextDouble() * 1000);
+            }
+            assertEquals(value, Double.parseDouble(value), 
+                    XmlUtils.parseDouble(value, 0, value.length()), 0);
+        }
+        for (String value : new String[] {"", ".", "1e", "1e+", "-", "a"}) {
+            try {
+                XmlUtils.parseDouble(value, 0, value.length());
+                fail("Should not parse: " + value);
+            } catch (NumberFormatException e) {
+                log.debug("Expected: " + e.getMessage());
+            }
+        }
+        assertTrue(XmlUtils.parseBoolean(" True ", 0, 6));
+        assertFalse(XmlUtils.parseBoolean("yes", 0, 3));
+    }
+    
     @Test
     public void testMultiple() {
         String body = "<data type=\"echo\" id=\"123\">give me echo!</data>";